@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -7,42 +8,73 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.booking.dto.BookingBatchRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.dto.ShortBookingRequestDto;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.NonBlockingExchange;
+import ru.practicum.shareit.client.ResponseCache;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
+    private final ResponseCache responseCache;
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         HttpComponentsClientHttpRequestFactory requestFactory,
+                         ObjectProvider<NonBlockingExchange> nonBlockingExchange,
+                         ResponseCache responseCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                nonBlockingExchange.getIfAvailable()
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> create(Long userId, ShortBookingRequestDto shortBookingRequestDto) {
-        return post("", userId, shortBookingRequestDto);
+    public CompletableFuture<ResponseEntity<Object>> create(Long userId, ShortBookingRequestDto shortBookingRequestDto) {
+        //Новое бронирование меняет последнее/следующее бронирование в ответе владельцу вещи:
+        return post("", userId, shortBookingRequestDto)
+                .whenComplete((response, e) -> responseCache.invalidate(ResponseCache.ITEMS,
+                        shortBookingRequestDto.getItemId()));
     }
 
-    public ResponseEntity<Object> approve(Long userId, Long bookingId, Boolean approved) {
+    public CompletableFuture<ResponseEntity<Object>> createAll(Long userId, BookingBatchRequestDto bookingBatchRequestDto) {
+        return post("/batch", userId, bookingBatchRequestDto)
+                .whenComplete((response, e) -> bookingBatchRequestDto.getBookings().forEach(booking ->
+                        responseCache.invalidate(ResponseCache.ITEMS, booking.getItemId())));
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> approve(Long userId, Long bookingId, Boolean approved) {
         Map<String, Object> parameters = Map.of(
                 "approved", approved
         );
-        return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
+        //Вещь бронирования шлюзу неизвестна, поэтому сбрасываются все ответы владельцу:
+        return patch("/" + bookingId + "?approved={approved}", userId, parameters, null)
+                .whenComplete((response, e) -> responseCache.invalidateUser(userId));
     }
 
-    public ResponseEntity<Object> getBooking(Long userId, Long bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> getBooking(Long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> findAllByBookerId(Long userId, BookingState state, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAllByBookerId(Long userId, BookingState state, Integer from, Integer size,
+                                                                       String cursor) {
+        if (cursor != null) {
+            Map<String, Object> parameters = Map.of(
+                    "state", state.name(),
+                    "from", from,
+                    "size", size,
+                    "cursor", cursor
+            );
+            return get("?state={state}&from={from}&size={size}&cursor={cursor}", userId, parameters);
+        }
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
@@ -51,7 +83,17 @@ public class BookingClient extends BaseClient {
         return get("?state={state}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> findAllByOwnerId(long userId, BookingState state, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAllByOwnerId(long userId, BookingState state, Integer from, Integer size,
+                                                                      String cursor) {
+        if (cursor != null) {
+            Map<String, Object> parameters = Map.of(
+                    "state", state.name(),
+                    "from", from,
+                    "size", size,
+                    "cursor", cursor
+            );
+            return get("/owner?state={state}&from={from}&size={size}&cursor={cursor}", userId, parameters);
+        }
         Map<String, Object> parameters = Map.of(
                 "state", state.name(),
                 "from", from,
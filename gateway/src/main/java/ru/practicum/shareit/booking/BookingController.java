@@ -7,12 +7,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.booking.dto.ShortBookingRequestDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -23,46 +25,55 @@ public class BookingController {
     private final BookingClient bookingClient;
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                         @Valid @RequestBody ShortBookingRequestDto shortBookingRequestDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                            @Valid @RequestBody ShortBookingRequestDto shortBookingRequestDto) {
         log.info("Запрос на бронирование создан");
         return bookingClient.create(userId, shortBookingRequestDto);
     }
 
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<Object>> createAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                               @Valid @RequestBody BookingBatchRequestDto bookingBatchRequestDto) {
+        log.info("Пакет запросов на бронирование создан");
+        return bookingClient.createAll(userId, bookingBatchRequestDto);
+    }
+
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> approve(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                          @PathVariable Long bookingId,
-                                          @RequestParam Boolean approved) {
+    public CompletableFuture<ResponseEntity<Object>> approve(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                             @PathVariable Long bookingId,
+                                                             @RequestParam Boolean approved) {
         log.info("Подтверждение или отклонение запроса на бронировании");
         return bookingClient.approve(userId, bookingId, approved);
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> getBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                             @PathVariable Long bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> getBooking(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                @PathVariable Long bookingId) {
         log.info("Получение данных о бронировании по id");
         return bookingClient.getBooking(userId, bookingId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> findAllByBookerId(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                    @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                                    @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                    @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAllByBookerId(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                       @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                                       @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                                       @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                       @RequestParam(required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
         log.info("Получение списка всех бронирований пользователя по его id");
-        return bookingClient.findAllByBookerId(userId, state, from, size);
+        return bookingClient.findAllByBookerId(userId, state, from, size, cursor);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> findAllByOwnerId(@RequestHeader("X-Sharer-User-Id") Long ownerId,
-                                                   @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                                   @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                   @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAllByOwnerId(@RequestHeader("X-Sharer-User-Id") Long ownerId,
+                                                                      @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                                                      @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                                      @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                      @RequestParam(required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
         log.info("Получение списка бронирований для всех вещей пользователя по его id");
-        return bookingClient.findAllByOwnerId(ownerId, state, from, size);
+        return bookingClient.findAllByOwnerId(ownerId, state, from, size, cursor);
     }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingBatchRequestDto {
+    public static final int MAX_SIZE = 100;
+
+    @NotEmpty
+    @Size(max = MAX_SIZE)
+    private List<@Valid ShortBookingRequestDto> bookings;
+}
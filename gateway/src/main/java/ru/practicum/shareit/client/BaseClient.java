@@ -1,98 +1,133 @@
 package ru.practicum.shareit.client;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
 public class BaseClient {
+    //Заголовки соединения с сервером; длину тела и способ передачи Tomcat выставит сам:
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "content-length", "upgrade", "te", "trailer", "proxy-authenticate", "proxy-authorization");
+    //Ошибки сервера передаются клиенту так же, как успешные ответы, без HttpStatusCodeException:
+    private static final ResponseErrorHandler PASSTHROUGH_ERRORS = new ResponseErrorHandler() {
+        @Override
+        public boolean hasError(ClientHttpResponse response) {
+            return false;
+        }
+
+        @Override
+        public void handleError(ClientHttpResponse response) {
+        }
+    };
+
     protected final RestTemplate rest;
+    @Nullable
+    private final NonBlockingExchange nonBlockingExchange;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, null);
+    }
+
+    /**
+     * Если задан nonBlockingExchange (shareit-server.http.mode=async), запросы к серверу отправляются через него,
+     * а rest используется только для подстановки параметров в адрес.
+     */
+    public BaseClient(RestTemplate rest, @Nullable NonBlockingExchange nonBlockingExchange) {
         this.rest = rest;
+        this.rest.setErrorHandler(PASSTHROUGH_ERRORS);
+        this.nonBlockingExchange = nonBlockingExchange;
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+    private <T> CompletableFuture<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (nonBlockingExchange != null) {
+            URI uri = parameters != null
+                    ? rest.getUriTemplateHandler().expand(path, parameters)
+                    : rest.getUriTemplateHandler().expand(path);
+            return nonBlockingExchange.exchange(uri, method, defaultHeaders(userId), body)
+                    .thenApply(BaseClient::prepareGatewayResponse);
+        }
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
 
-        ResponseEntity<Object> shareitServerResponse;
-        try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+        //Тело ответа не разбирается: байты сервера вместе с Content-Type отдаются клиенту как есть.
+        ResponseEntity<byte[]> shareitServerResponse;
+        if (parameters != null) {
+            shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
+        } else {
+            shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        return CompletableFuture.completedFuture(prepareGatewayResponse(shareitServerResponse));
     }
 
     private HttpHeaders defaultHeaders(Long userId) {
@@ -105,17 +140,19 @@ public class BaseClient {
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
-        }
-
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<byte[]> response) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCodeValue());
+        response.getHeaders().forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                responseBuilder.header(name, values.toArray(new String[0]));
+            }
+        });
 
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+        byte[] body = response.getBody();
+        if (body != null && body.length > 0) {
+            return responseBuilder.body(body);
         }
 
         return responseBuilder.build();
     }
-}
+}
\ No newline at end of file
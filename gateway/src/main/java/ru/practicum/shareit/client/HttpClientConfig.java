@@ -0,0 +1,100 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Один пул соединений на все клиенты (ItemClient, BookingClient, UserClient, ItemRequestClient),
+ * вместо отдельного HttpClient с настройками по умолчанию в каждом из них.
+ * Состояние пула публикуется в метриках httpcomponents.httpclient.pool.* с тегом httpclient=shareit-server.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class HttpClientConfig {
+    private static final String JDK_KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+    @Bean
+    public PoolingHttpClientConnectionManager shareItServerConnectionManager(HttpClientProperties properties,
+                                                                             MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                properties.getTimeToLive().toMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(properties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        connectionManager.setValidateAfterInactivity((int) properties.getValidateAfterInactivity().toMillis());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "shareit-server").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient shareItServerHttpClient(PoolingHttpClientConnectionManager connectionManager,
+                                                       HttpClientProperties properties) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) properties.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) properties.getConnectionRequestTimeout().toMillis())
+                .build();
+        long keepAlive = properties.getKeepAlive().toMillis();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response,
+                            context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getIdleEviction().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public HttpComponentsClientHttpRequestFactory shareItServerRequestFactory(CloseableHttpClient httpClient) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    @Bean
+    public ResponseCache responseCache(@Value("${shareit-server.cache.enabled:false}") boolean enabled,
+                                       @Value("${shareit-server.cache.max-size:10000}") int maxSize,
+                                       @Value("${shareit-server.cache.ttl:10s}") Duration ttl,
+                                       MeterRegistry meterRegistry) {
+        return new ResponseCache(enabled, maxSize, ttl, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit-server.http.mode", havingValue = "async")
+    public NonBlockingExchange nonBlockingExchange(HttpClientProperties properties, ObjectMapper objectMapper,
+                                                   MeterRegistry meterRegistry) {
+        //Срок жизни простаивающих соединений java.net.http.HttpClient задаётся только системным свойством
+        //(по умолчанию 1200 секунд, дольше keep-alive сервера). Свойство читается при создании первого клиента.
+        if (System.getProperty(JDK_KEEP_ALIVE_PROPERTY) == null) {
+            System.setProperty(JDK_KEEP_ALIVE_PROPERTY,
+                    String.valueOf(Math.max(1, properties.getKeepAlive().toSeconds())));
+        }
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(properties.getConnectTimeout())
+                .build();
+        //Все запросы идут на один адрес shareit-server, поэтому действует меньший из двух пределов:
+        NonBlockingExchange nonBlockingExchange = new NonBlockingExchange(httpClient, objectMapper,
+                properties.getReadTimeout(), Math.min(properties.getMaxTotal(), properties.getMaxPerRoute()),
+                properties.getConnectionRequestTimeout());
+        nonBlockingExchange.bindTo(meterRegistry, "shareit-server-async");
+        return nonBlockingExchange;
+    }
+}
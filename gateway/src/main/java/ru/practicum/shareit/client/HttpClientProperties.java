@@ -0,0 +1,38 @@
+package ru.practicum.shareit.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки общего пула HTTP-соединений шлюза с shareit-server.
+ * keep-alive должен быть меньше server.tomcat.keep-alive-timeout сервера (по умолчанию 20 секунд),
+ * чтобы шлюз не брал из пула соединения, которые сервер уже закрыл.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "shareit-server.http")
+public class HttpClientProperties {
+    //blocking - RestTemplate на пуле соединений ниже, async - неблокирующий NonBlockingExchange:
+    private Mode mode = Mode.BLOCKING;
+    //Всего соединений и соединений на один адрес (у шлюза он один - shareit-server):
+    private int maxTotal = 200;
+    private int maxPerRoute = 200;
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(30);
+    //Ожидание свободного соединения в пуле:
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+    //Сколько держать соединение открытым, если сервер не прислал заголовок Keep-Alive:
+    private Duration keepAlive = Duration.ofSeconds(15);
+    private Duration idleEviction = Duration.ofSeconds(10);
+    //Максимальное время жизни соединения независимо от активности:
+    private Duration timeToLive = Duration.ofMinutes(5);
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+    public enum Mode {
+        BLOCKING,
+        ASYNC
+    }
+}
@@ -0,0 +1,126 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Неблокирующий обмен с shareit-server на java.net.http.HttpClient (режим shareit-server.http.mode=async).
+ * Поток Tomcat освобождается сразу после отправки запроса, ответ обрабатывается по его приходу,
+ * поэтому число одновременных запросов ограничено соединениями, а не пулом потоков.
+ * Тело ответа не разбирается, дальше его как есть передаёт BaseClient.
+ * Пула, как у Apache HttpClient, у java.net.http.HttpClient нет, поэтому пределы общего пула (max-total,
+ * max-per-route) здесь соблюдаются разрешениями: без свободного разрешения запрос ждёт его не дольше
+ * connection-request-timeout. Занятость публикуется в тех же метриках httpcomponents.httpclient.pool.*
+ * с тегом httpclient=shareit-server-async.
+ */
+public class NonBlockingExchange {
+    //Заголовки, которые java.net.http.HttpClient выставляет сам:
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+            "upgrade");
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration readTimeout;
+    private final int maxConnections;
+    private final Duration connectionRequestTimeout;
+    private final Semaphore connections;
+
+    public NonBlockingExchange(HttpClient httpClient, ObjectMapper objectMapper, Duration readTimeout,
+                               int maxConnections, Duration connectionRequestTimeout) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.readTimeout = readTimeout;
+        this.maxConnections = maxConnections;
+        this.connectionRequestTimeout = connectionRequestTimeout;
+        this.connections = new Semaphore(maxConnections, true);
+    }
+
+    public void bindTo(MeterRegistry meterRegistry, String name) {
+        Gauge.builder("httpcomponents.httpclient.pool.total.max", () -> maxConnections)
+                .tag("httpclient", name)
+                .register(meterRegistry);
+        Gauge.builder("httpcomponents.httpclient.pool.total.connections", this::leased)
+                .tag("httpclient", name)
+                .tag("state", "leased")
+                .register(meterRegistry);
+        Gauge.builder("httpcomponents.httpclient.pool.total.connections", connections::availablePermits)
+                .tag("httpclient", name)
+                .tag("state", "available")
+                .register(meterRegistry);
+        Gauge.builder("httpcomponents.httpclient.pool.total.pending", connections::getQueueLength)
+                .tag("httpclient", name)
+                .register(meterRegistry);
+    }
+
+    int leased() {
+        return maxConnections - connections.availablePermits();
+    }
+
+    public CompletableFuture<ResponseEntity<byte[]>> exchange(URI uri, HttpMethod method, HttpHeaders headers,
+                                                              @Nullable Object body) {
+        //Как и пул Apache HttpClient, при исчерпании соединений поток ждёт не дольше connection-request-timeout:
+        try {
+            if (!connections.tryAcquire(connectionRequestTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(new ResourceAccessException(
+                        "Нет свободного соединения с shareit-server за " + connectionRequestTimeout));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return send(uri, method, headers, body).whenComplete((response, e) -> connections.release());
+        } catch (RuntimeException e) {
+            connections.release();
+            throw e;
+        }
+    }
+
+    private CompletableFuture<ResponseEntity<byte[]>> send(URI uri, HttpMethod method, HttpHeaders headers,
+                                                           @Nullable Object body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .method(method.name(), body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(toJson(body)));
+        headers.forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> request.header(name, value));
+            }
+        });
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(this::toResponseEntity);
+    }
+
+    private ResponseEntity<byte[]> toResponseEntity(HttpResponse<byte[]> response) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.statusCode());
+        response.headers().map().forEach((name, values) -> builder.header(name, values.toArray(new String[0])));
+        return builder.body(response.body());
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Кэш успешных ответов сервера на GET одного ресурса (вещи, запроса) в шлюзе.
+ * Ответ зависит от того, кто спрашивает (владелец вещи видит бронирования), поэтому хранится отдельно
+ * для каждого X-Sharer-User-Id. Ограничен по числу ответов (вытесняются давно не читавшиеся ресурсы)
+ * и по времени жизни; записи сбрасываются клиентами шлюза при изменении ресурса через шлюз.
+ * Изменения в обход шлюза или другого экземпляра шлюза видны не позднее чем через ttl.
+ */
+public class ResponseCache {
+    public static final String ITEMS = "items";
+    public static final String REQUESTS = "requests";
+    private static final int STRIPES = 16;
+
+    private final boolean enabled;
+    private final int maxSizePerStripe;
+    private final long ttlNanos;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<String, Counter> hits = new HashMap<>();
+    private final Map<String, Counter> misses = new HashMap<>();
+    private final Counter evictions;
+
+    public ResponseCache(boolean enabled, int maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.enabled = enabled && maxSize > 0;
+        this.maxSizePerStripe = Math.max(1, maxSize / STRIPES);
+        this.ttlNanos = ttl.toNanos();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        for (String resource : List.of(ITEMS, REQUESTS)) {
+            hits.put(resource, Counter.builder("shareit.gateway.cache.requests")
+                    .tag("resource", resource)
+                    .tag("result", "hit")
+                    .register(meterRegistry));
+            misses.put(resource, Counter.builder("shareit.gateway.cache.requests")
+                    .tag("resource", resource)
+                    .tag("result", "miss")
+                    .register(meterRegistry));
+        }
+        evictions = Counter.builder("shareit.gateway.cache.evictions").register(meterRegistry);
+        Gauge.builder("shareit.gateway.cache.size", this, ResponseCache::size).register(meterRegistry);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> get(String resource, Long id, Long userId,
+                                                         Supplier<CompletableFuture<ResponseEntity<Object>>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String key = resource + "/" + id;
+        Stripe stripe = stripe(key);
+        ResponseEntity<Object> cached = stripe.get(key, userId, System.nanoTime());
+        if (cached != null) {
+            hits.get(resource).increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        misses.get(resource).increment();
+        //Ответ, загрузка которого началась до сброса кэша, уже может быть устаревшим и не сохраняется:
+        long version = stripe.version();
+        return loader.get().thenApply(response -> {
+            if (response.getStatusCode() == HttpStatus.OK) {
+                int evicted = stripe.put(key, userId, response, System.nanoTime() + ttlNanos, maxSizePerStripe,
+                        version);
+                if (evicted > 0) {
+                    evictions.increment(evicted);
+                }
+            }
+            return response;
+        });
+    }
+
+    //Сбросить ответы о ресурсе для всех пользователей:
+    public void invalidate(String resource, Long id) {
+        if (enabled && id != null) {
+            String key = resource + "/" + id;
+            stripe(key).remove(key);
+        }
+    }
+
+    //Сбросить ответы обо всех ресурсах этого вида:
+    public void invalidateAll(String resource) {
+        if (enabled) {
+            for (Stripe stripe : stripes) {
+                stripe.removeResource(resource + "/");
+            }
+        }
+    }
+
+    //Сбросить все ответы, полученные пользователем:
+    public void invalidateUser(Long userId) {
+        if (enabled) {
+            for (Stripe stripe : stripes) {
+                stripe.removeUser(userId);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        if (enabled) {
+            for (Stripe stripe : stripes) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private Stripe stripe(String key) {
+        return stripes[Math.floorMod(key.hashCode(), STRIPES)];
+    }
+
+    private static final class Entry {
+        private final ResponseEntity<Object> response;
+        private final long expiresAt;
+
+        Entry(ResponseEntity<Object> response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Часть кэша под своей блокировкой: ресурс -> (пользователь -> ответ) в порядке последнего чтения ресурса.
+     */
+    private static final class Stripe {
+        private final LinkedHashMap<String, Map<Long, Entry>> resources = new LinkedHashMap<>(16, 0.75f, true);
+        private int size;
+        //Увеличивается при каждом сбросе:
+        private long version;
+
+        synchronized ResponseEntity<Object> get(String key, Long userId, long now) {
+            Map<Long, Entry> byUser = resources.get(key);
+            Entry entry = byUser == null ? null : byUser.get(userId);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt - now <= 0) {
+                byUser.remove(userId);
+                size--;
+                if (byUser.isEmpty()) {
+                    resources.remove(key);
+                }
+                return null;
+            }
+            return entry.response;
+        }
+
+        synchronized int put(String key, Long userId, ResponseEntity<Object> response, long expiresAt, int maxSize,
+                             long loadedVersion) {
+            if (version != loadedVersion) {
+                return 0;
+            }
+            Map<Long, Entry> byUser = resources.computeIfAbsent(key, k -> new HashMap<>());
+            if (byUser.put(userId, new Entry(response, expiresAt)) == null) {
+                size++;
+            }
+            int evicted = 0;
+            Iterator<Map.Entry<String, Map<Long, Entry>>> eldest = resources.entrySet().iterator();
+            while (size > maxSize && eldest.hasNext()) {
+                Map.Entry<String, Map<Long, Entry>> resource = eldest.next();
+                if (resource.getKey().equals(key)) {
+                    continue;
+                }
+                size -= resource.getValue().size();
+                evicted += resource.getValue().size();
+                eldest.remove();
+            }
+            return evicted;
+        }
+
+        synchronized void remove(String key) {
+            version++;
+            Map<Long, Entry> byUser = resources.remove(key);
+            if (byUser != null) {
+                size -= byUser.size();
+            }
+        }
+
+        synchronized void removeResource(String prefix) {
+            version++;
+            Iterator<Map.Entry<String, Map<Long, Entry>>> iterator = resources.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Map<Long, Entry>> resource = iterator.next();
+                if (resource.getKey().startsWith(prefix)) {
+                    size -= resource.getValue().size();
+                    iterator.remove();
+                }
+            }
+        }
+
+        synchronized void removeUser(Long userId) {
+            version++;
+            Iterator<Map<Long, Entry>> iterator = resources.values().iterator();
+            while (iterator.hasNext()) {
+                Map<Long, Entry> byUser = iterator.next();
+                if (byUser.remove(userId) != null) {
+                    size--;
+                    if (byUser.isEmpty()) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+
+        synchronized void clear() {
+            version++;
+            resources.clear();
+            size = 0;
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -8,34 +9,54 @@ import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.NonBlockingExchange;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
+    private final ResponseCache responseCache;
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      HttpComponentsClientHttpRequestFactory requestFactory,
+                      ObjectProvider<NonBlockingExchange> nonBlockingExchange,
+                      ResponseCache responseCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                nonBlockingExchange.getIfAvailable()
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> create(Long userId, ItemDto itemDto) {
-        return post("", userId, itemDto);
+    public CompletableFuture<ResponseEntity<Object>> create(Long userId, ItemDto itemDto) {
+        return post("", userId, itemDto)
+                .whenComplete((response, e) -> responseCache.invalidate(ResponseCache.REQUESTS, itemDto.getRequestId()));
     }
 
-    public ResponseEntity<Object> update(Long userId, Long itemId, ItemDto itemDto) {
-        return patch("/" + itemId, userId, itemDto);
+    public CompletableFuture<ResponseEntity<Object>> update(Long userId, Long itemId, ItemDto itemDto) {
+        return patch("/" + itemId, userId, itemDto)
+                .whenComplete((response, e) -> invalidateItem(itemId));
     }
 
-    public ResponseEntity<Object> findAll(Long userId, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAll(Long userId, Integer from, Integer size, String cursor) {
+        if (cursor != null) {
+            Map<String, Object> parameters = Map.of(
+                    "from", from,
+                    "size", size,
+                    "cursor", cursor
+            );
+            return get("?from={from}&size={size}&cursor={cursor}", userId, parameters);
+        }
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -43,15 +64,34 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getItemById(Long userId, Long itemId) {
-        return get("/" + itemId, userId);
+    public CompletableFuture<ResponseEntity<Object>> getItemById(Long userId, Long itemId) {
+        return responseCache.get(ResponseCache.ITEMS, itemId, userId, () -> get("/" + itemId, userId));
     }
 
-    public ResponseEntity<Object> delete(Long itemId) {
-        return delete("/" + itemId);
+    public CompletableFuture<ResponseEntity<Object>> getAvailability(Long userId, Long itemId,
+                                                                     LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
     }
 
-    public ResponseEntity<Object> findItemByName(Long userId, String text, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> delete(Long itemId) {
+        return delete("/" + itemId)
+                .whenComplete((response, e) -> invalidateItem(itemId));
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> findItemByName(Long userId, String text, Integer from, Integer size, String cursor) {
+        if (cursor != null) {
+            Map<String, Object> parameters = Map.of(
+                    "text", text,
+                    "from", from,
+                    "size", size,
+                    "cursor", cursor
+            );
+            return get("/search?text={text}&from={from}&size={size}&cursor={cursor}", userId, parameters);
+        }
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
@@ -60,7 +100,15 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> createComment(Long userId, Long itemId, CommentDto commentDto) {
-        return post("/" + itemId + "/comment", userId, commentDto);
+    public CompletableFuture<ResponseEntity<Object>> createComment(Long userId, Long itemId, CommentDto commentDto) {
+        return post("/" + itemId + "/comment", userId, commentDto)
+                .whenComplete((response, e) -> responseCache.invalidate(ResponseCache.ITEMS, itemId));
+    }
+
+    //Вещь входит в ответ о запросе, на который она создана. Шлюз не знает, к какому запросу относится вещь,
+    //поэтому вместе с ней сбрасываются все запросы:
+    private void invalidateItem(Long itemId) {
+        responseCache.invalidate(ResponseCache.ITEMS, itemId);
+        responseCache.invalidateAll(ResponseCache.REQUESTS);
     }
 }
@@ -2,15 +2,19 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.exceptions.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.CommentDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * TODO Sprint add-controllers.
@@ -24,49 +28,63 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id") Long userId, @Valid @RequestBody ItemDto itemDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(@RequestHeader("X-Sharer-User-Id") Long userId, @Valid @RequestBody ItemDto itemDto) {
         log.info("Вещь добавлена: {}", itemDto.getName());
         return itemClient.create(userId, itemDto);
     }
 
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> update(@RequestHeader("X-Sharer-User-Id") Long userId, @PathVariable Long itemId,
-                                         @RequestBody ItemDto itemDto) {
+    public CompletableFuture<ResponseEntity<Object>> update(@RequestHeader("X-Sharer-User-Id") Long userId, @PathVariable Long itemId,
+                                                            @RequestBody ItemDto itemDto) {
         log.info("Вещь обновлена: {}", itemDto.getName());
         return itemClient.update(userId, itemId, itemDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> findAll(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                          @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                          @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                             @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                             @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                             @RequestParam(required = false) String cursor) {
         log.info("Получение всех вещей пользователя");
-        return itemClient.findAll(userId, from, size);
+        return itemClient.findAll(userId, from, size, cursor);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItemById(@RequestHeader("X-Sharer-User-Id") Long userId, @PathVariable Long itemId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemById(@RequestHeader("X-Sharer-User-Id") Long userId, @PathVariable Long itemId) {
         return itemClient.getItemById(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public CompletableFuture<ResponseEntity<Object>> getAvailability(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                     @PathVariable Long itemId,
+                                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Начало периода должно быть раньше его окончания");
+        }
+        log.debug("Получение занятости вещи");
+        return itemClient.getAvailability(userId, itemId, from, to);
+    }
+
     @DeleteMapping("/{itemId}")
-    public ResponseEntity<Object> delete(@PathVariable Long itemId) {
+    public CompletableFuture<ResponseEntity<Object>> delete(@PathVariable Long itemId) {
         log.debug("Удаление вещи");
         return itemClient.delete(itemId);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> findItemByName(Long userId, String text,
-                                                 @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                 @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findItemByName(Long userId, String text,
+                                                                    @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                                    @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                                    @RequestParam(required = false) String cursor) {
         log.debug("Поиск вещи по её названию");
-        return itemClient.findItemByName(userId, text, from, size);
+        return itemClient.findItemByName(userId, text, from, size, cursor);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> createComment(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                @PathVariable Long itemId,
-                                                @Valid @RequestBody CommentDto commentDto) {
+    public CompletableFuture<ResponseEntity<Object>> createComment(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                   @PathVariable Long itemId,
+                                                                   @Valid @RequestBody CommentDto commentDto) {
         log.info("Добавление отзыва");
         return itemClient.createComment(userId, itemId, commentDto);
     }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -8,34 +9,51 @@ import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.NonBlockingExchange;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
+    private final ResponseCache responseCache;
 
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                             HttpComponentsClientHttpRequestFactory requestFactory,
+                             ObjectProvider<NonBlockingExchange> nonBlockingExchange,
+                             ResponseCache responseCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                nonBlockingExchange.getIfAvailable()
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> create(Long userId, ItemRequestDto itemRequestDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(Long userId, ItemRequestDto itemRequestDto) {
         return post("", userId, itemRequestDto);
     }
 
-    public ResponseEntity<Object> findAllByUserId(Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> findAllByUserId(Long userId) {
 
         return get("", userId);
     }
 
-    public ResponseEntity<Object> findAll(Long userId, Integer from, Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAll(Long userId, Integer from, Integer size, String cursor) {
+        if (cursor != null) {
+            Map<String, Object> parameters = Map.of(
+                    "from", from,
+                    "size", size,
+                    "cursor", cursor
+            );
+            return get("/all?from={from}&size={size}&cursor={cursor}", userId, parameters);
+        }
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -43,7 +61,7 @@ public class ItemRequestClient extends BaseClient {
         return get("/all?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getItemRequestById(Long userId, Long requestId) {
-        return get("/" + requestId, userId);
+    public CompletableFuture<ResponseEntity<Object>> getItemRequestById(Long userId, Long requestId) {
+        return responseCache.get(ResponseCache.REQUESTS, requestId, userId, () -> get("/" + requestId, userId));
     }
 }
@@ -10,6 +10,7 @@ import ru.practicum.shareit.request.dto.ItemRequestDto;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * TODO Sprint add-item-requests.
@@ -23,30 +24,31 @@ public class ItemRequestController {
     private final ItemRequestClient itemRequestClient;
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                         @Valid @RequestBody ItemRequestDto itemRequestDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                            @Valid @RequestBody ItemRequestDto itemRequestDto) {
         log.info("Запрос вещи добавлен. id запроса = " + itemRequestDto.getId());
         return itemRequestClient.create(userId, itemRequestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> findAllByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> findAllByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
         log.info("Получение пользователем с id = " + userId + "списка своих запросов");
         return itemRequestClient.findAllByUserId(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> findAll(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                  @RequestParam(defaultValue = "0") @PositiveOrZero(message = "Индекс первого элемента не может быть отрицательным") Integer from,
-                                  @RequestParam(defaultValue = "10") @Positive (message = "количество отображаемых элементов должно быть больше 0") Integer size) {
+    public CompletableFuture<ResponseEntity<Object>> findAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                     @RequestParam(defaultValue = "0") @PositiveOrZero(message = "Индекс первого элемента не может быть отрицательным") Integer from,
+                                                     @RequestParam(defaultValue = "10") @Positive (message = "количество отображаемых элементов должно быть больше 0") Integer size,
+                                                     @RequestParam(required = false) String cursor) {
         log.info("Получение списка запросов, созданных другими пользователями");
-        return itemRequestClient.findAll(userId, from, size);
+        return itemRequestClient.findAll(userId, from, size, cursor);
 
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> getItemRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                         @PathVariable Long requestId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemRequestById(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                            @PathVariable Long requestId) {
         log.info("Получение запроса с id = " + requestId);
         return itemRequestClient.getItemRequestById(userId, requestId);
     }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -8,39 +9,53 @@ import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.NonBlockingExchange;
+import ru.practicum.shareit.client.ResponseCache;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
+    private final ResponseCache responseCache;
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      HttpComponentsClientHttpRequestFactory requestFactory,
+                      ObjectProvider<NonBlockingExchange> nonBlockingExchange,
+                      ResponseCache responseCache) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                nonBlockingExchange.getIfAvailable()
         );
+        this.responseCache = responseCache;
     }
 
-    public ResponseEntity<Object> create(UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(UserDto userDto) {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> update(Long userId, UserDto userDto) {
-        return patch("/" + userId, userDto);
+    public CompletableFuture<ResponseEntity<Object>> update(Long userId, UserDto userDto) {
+        //Имя пользователя есть в отзывах к вещам:
+        return patch("/" + userId, userDto)
+                .whenComplete((response, e) -> responseCache.invalidateAll());
     }
 
-    public ResponseEntity<Object> findAll() {
+    public CompletableFuture<ResponseEntity<Object>> findAll() {
         return get("");
     }
 
-    public ResponseEntity<Object> getUserById(Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getUserById(Long userId) {
         return get("/" + userId);
     }
 
-    public ResponseEntity<Object> delete(Long userId) {
-        return delete("/" + userId);
+    public CompletableFuture<ResponseEntity<Object>> delete(Long userId) {
+        //Вместе с пользователем удаляются его вещи и запросы:
+        return delete("/" + userId)
+                .whenComplete((response, e) -> responseCache.invalidateAll());
     }
 }
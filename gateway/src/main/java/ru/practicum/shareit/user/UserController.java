@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * TODO Sprint add-controllers.
@@ -21,30 +22,30 @@ public class UserController {
     private final UserClient userClient;
 
     @PostMapping
-    public ResponseEntity<Object> create(@Valid @RequestBody UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> create(@Valid @RequestBody UserDto userDto) {
         log.info("Пользователь добавлен: {}", userDto.getName());
         return userClient.create(userDto);
     }
 
     @PatchMapping("/{userId}")
-    public ResponseEntity<Object> update(@PathVariable Long userId, @RequestBody UserDto userDto) {
+    public CompletableFuture<ResponseEntity<Object>> update(@PathVariable Long userId, @RequestBody UserDto userDto) {
         log.info("Пользователь добавлен: {}", userDto.getName());
         return userClient.update(userId, userDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> findAll() {
+    public CompletableFuture<ResponseEntity<Object>> findAll() {
         log.info("Получение всех пользователей");
         return userClient.findAll();
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<Object> getUserById(@PathVariable Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> getUserById(@PathVariable Long userId) {
         return userClient.getUserById(userId);
     }
 
     @DeleteMapping("/{userId}")
-    public ResponseEntity<Object> delete(@PathVariable Long userId) {
+    public CompletableFuture<ResponseEntity<Object>> delete(@PathVariable Long userId) {
         log.debug("Удаление пользователя");
         return userClient.delete(userId);
     }
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class NonBlockingExchangeTest {
+    private static final URI ITEMS_URI = URI.create("http://localhost:9090/items");
+    HttpClient httpClient;
+    List<CompletableFuture<HttpResponse<byte[]>>> pending;
+    SimpleMeterRegistry meterRegistry;
+    NonBlockingExchange nonBlockingExchange;
+
+    @BeforeEach
+    public void setUp() {
+        httpClient = mock(HttpClient.class);
+        pending = new ArrayList<>();
+        when(httpClient.<byte[]>sendAsync(any(), any())).thenAnswer(invocation -> {
+            CompletableFuture<HttpResponse<byte[]>> response = new CompletableFuture<>();
+            pending.add(response);
+            return response;
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        nonBlockingExchange = new NonBlockingExchange(httpClient, new ObjectMapper(), Duration.ofSeconds(30), 2,
+                Duration.ofMillis(50));
+        nonBlockingExchange.bindTo(meterRegistry, "shareit-server-async");
+    }
+
+    @Test
+    public void exchange_whenConnectionsExhausted_thenFailsAfterConnectionRequestTimeout() {
+        nonBlockingExchange.exchange(ITEMS_URI, HttpMethod.GET, new HttpHeaders(), null);
+        nonBlockingExchange.exchange(ITEMS_URI, HttpMethod.GET, new HttpHeaders(), null);
+
+        CompletableFuture<ResponseEntity<byte[]>> rejected = nonBlockingExchange.exchange(ITEMS_URI, HttpMethod.GET,
+                new HttpHeaders(), null);
+
+        CompletionException e = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(ResourceAccessException.class, e.getCause());
+        assertEquals(2, pending.size());
+        assertEquals(2.0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "shareit-server-async").tag("state", "leased").gauge().value());
+    }
+
+    @Test
+    public void exchange_whenResponseReceived_thenConnectionReleased() {
+        CompletableFuture<ResponseEntity<byte[]>> first = nonBlockingExchange.exchange(ITEMS_URI, HttpMethod.GET,
+                new HttpHeaders(), null);
+        nonBlockingExchange.exchange(ITEMS_URI, HttpMethod.GET, new HttpHeaders(), null);
+
+        pending.get(0).complete(response(200, "[]"));
+
+        assertEquals(200, first.join().getStatusCodeValue());
+        assertEquals(1, nonBlockingExchange.leased());
+        nonBlockingExchange.exchange(ITEMS_URI, HttpMethod.GET, new HttpHeaders(), null);
+        assertEquals(3, pending.size());
+        assertEquals(2, nonBlockingExchange.leased());
+    }
+
+    @Test
+    public void exchange_whenRequestFailed_thenConnectionReleased() {
+        CompletableFuture<ResponseEntity<byte[]>> failed = nonBlockingExchange.exchange(ITEMS_URI, HttpMethod.GET,
+                new HttpHeaders(), null);
+
+        pending.get(0).completeExceptionally(new HttpTimeoutException("request timed out"));
+
+        assertThrows(CompletionException.class, failed::join);
+        assertEquals(0, nonBlockingExchange.leased());
+        assertEquals(2.0, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", "shareit-server-async").gauge().value());
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpResponse<byte[]> response(int status, String body) {
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.headers()).thenReturn(java.net.http.HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(response.body()).thenReturn(body.getBytes());
+        return response;
+    }
+}
@@ -0,0 +1,170 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTest {
+    SimpleMeterRegistry meterRegistry;
+    AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void get_whenLoadedBefore_thenCachedResponseReturned() {
+        ResponseCache responseCache = new ResponseCache(true, 100, Duration.ofMinutes(1), meterRegistry);
+
+        ResponseEntity<Object> first = responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("item")).join();
+        ResponseEntity<Object> second = responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("item")).join();
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertEquals(1.0, meterRegistry.get("shareit.gateway.cache.requests")
+                .tag("resource", ResponseCache.ITEMS).tag("result", "hit").counter().count());
+    }
+
+    @Test
+    public void get_whenNotOk_thenResponseNotCached() {
+        ResponseCache responseCache = new ResponseCache(true, 100, Duration.ofMinutes(1), meterRegistry);
+        Supplier<CompletableFuture<ResponseEntity<Object>>> notFound = () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        };
+
+        responseCache.get(ResponseCache.ITEMS, 1L, 1L, notFound).join();
+        responseCache.get(ResponseCache.ITEMS, 1L, 1L, notFound).join();
+
+        assertEquals(2, loads.get());
+        assertEquals(0, responseCache.size());
+    }
+
+    @Test
+    public void get_whenTtlPassed_thenLoadedAgain() throws InterruptedException {
+        ResponseCache responseCache = new ResponseCache(true, 100, Duration.ofMillis(1), meterRegistry);
+
+        responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("item")).join();
+        Thread.sleep(10);
+        responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("item")).join();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void get_whenDisabled_thenAlwaysLoaded() {
+        ResponseCache responseCache = new ResponseCache(false, 100, Duration.ofMinutes(1), meterRegistry);
+
+        responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("item")).join();
+        responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("item")).join();
+
+        assertEquals(2, loads.get());
+        assertEquals(0, responseCache.size());
+    }
+
+    @Test
+    public void get_whenDifferentUsers_thenResponsesCachedSeparately() {
+        ResponseCache responseCache = new ResponseCache(true, 100, Duration.ofMinutes(1), meterRegistry);
+
+        ResponseEntity<Object> forOwner = responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("owner")).join();
+        ResponseEntity<Object> forOther = responseCache.get(ResponseCache.ITEMS, 1L, 2L, loader("other")).join();
+
+        assertEquals(2, loads.get());
+        assertEquals("owner", forOwner.getBody());
+        assertEquals("other", forOther.getBody());
+        assertEquals("owner", responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("item")).join().getBody());
+        assertEquals("other", responseCache.get(ResponseCache.ITEMS, 1L, 2L, loader("item")).join().getBody());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidateUser_whenCalled_thenOnlyUserResponsesDropped() {
+        ResponseCache responseCache = new ResponseCache(true, 100, Duration.ofMinutes(1), meterRegistry);
+        responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("owner")).join();
+        responseCache.get(ResponseCache.ITEMS, 1L, 2L, loader("other")).join();
+
+        responseCache.invalidateUser(1L);
+
+        assertEquals(1, responseCache.size());
+        responseCache.get(ResponseCache.ITEMS, 1L, 2L, loader("item")).join();
+        assertEquals(2, loads.get());
+        responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("item")).join();
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void invalidate_whenCalled_thenResourceDroppedForAllUsers() {
+        ResponseCache responseCache = new ResponseCache(true, 100, Duration.ofMinutes(1), meterRegistry);
+        responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("item")).join();
+        responseCache.get(ResponseCache.ITEMS, 1L, 2L, loader("item")).join();
+        responseCache.get(ResponseCache.ITEMS, 2L, 1L, loader("item")).join();
+
+        responseCache.invalidate(ResponseCache.ITEMS, 1L);
+
+        assertEquals(1, responseCache.size());
+    }
+
+    @Test
+    public void invalidateAll_whenResourceGiven_thenOtherResourcesKept() {
+        ResponseCache responseCache = new ResponseCache(true, 100, Duration.ofMinutes(1), meterRegistry);
+        for (long id = 1; id <= 20; id++) {
+            responseCache.get(ResponseCache.REQUESTS, id, 1L, loader("request")).join();
+        }
+        responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("item")).join();
+
+        responseCache.invalidateAll(ResponseCache.REQUESTS);
+
+        assertEquals(1, responseCache.size());
+        responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("item")).join();
+        assertEquals(21, loads.get());
+    }
+
+    @Test
+    public void get_whenMaxSizeExceeded_thenOldResponsesEvicted() {
+        ResponseCache responseCache = new ResponseCache(true, 32, Duration.ofMinutes(1), meterRegistry);
+
+        for (long id = 1; id <= 200; id++) {
+            responseCache.get(ResponseCache.ITEMS, id, 1L, loader("item")).join();
+        }
+
+        assertTrue(responseCache.size() <= 32);
+        assertEquals(200 - responseCache.size(),
+                meterRegistry.get("shareit.gateway.cache.evictions").counter().count());
+    }
+
+    @Test
+    public void get_whenInvalidatedDuringLoad_thenLoadedResponseNotCached() {
+        ResponseCache responseCache = new ResponseCache(true, 100, Duration.ofMinutes(1), meterRegistry);
+        CompletableFuture<ResponseEntity<Object>> pending = new CompletableFuture<>();
+
+        CompletableFuture<ResponseEntity<Object>> response = responseCache.get(ResponseCache.ITEMS, 1L, 1L, () -> {
+            loads.incrementAndGet();
+            return pending;
+        });
+        responseCache.invalidate(ResponseCache.ITEMS, 1L);
+        pending.complete(ResponseEntity.ok("stale"));
+
+        assertEquals("stale", response.join().getBody());
+        assertEquals(0, responseCache.size());
+        assertEquals("fresh", responseCache.get(ResponseCache.ITEMS, 1L, 1L, loader("fresh")).join().getBody());
+        assertEquals(2, loads.get());
+    }
+
+    private Supplier<CompletableFuture<ResponseEntity<Object>>> loader(Object body) {
+        return () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(ResponseEntity.ok(body));
+        };
+    }
+}
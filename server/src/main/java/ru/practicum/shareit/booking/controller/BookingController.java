@@ -4,10 +4,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchRequestDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.pagination.Cursor;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 /**
@@ -28,6 +32,13 @@ public class BookingController {
         return bookingService.create(userId, bookingRequestDto);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> createAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                 @RequestBody BookingBatchRequestDto bookingBatchRequestDto) {
+        log.info("Пакет запросов на бронирование создан");
+        return bookingService.createAll(userId, bookingBatchRequestDto.getBookings());
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingResponseDto approve(@RequestHeader("X-Sharer-User-Id") Long userId,
                                       @PathVariable Long bookingId,
@@ -47,17 +58,36 @@ public class BookingController {
     public List<BookingResponseDto> findAllByBookerId(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                       @RequestParam String state,
                                                       @RequestParam Integer from,
-                                                      @RequestParam Integer size) {
+                                                      @RequestParam Integer size,
+                                                      @RequestParam(required = false) String cursor,
+                                                      HttpServletResponse response) {
         log.info("Получение списка всех бронирований пользователя по его id");
-        return bookingService.findAllByBookerId(userId, state, from, size);
+        List<BookingResponseDto> bookings = cursor == null
+                ? bookingService.findAllByBookerId(userId, state, from, size)
+                : bookingService.findAllByBookerIdAfter(userId, state, Cursor.decode(cursor), size);
+        setNextCursor(response, bookings, size);
+        return bookings;
     }
 
     @GetMapping("/owner")
     public List<BookingResponseDto> findAllByOwnerId(@RequestHeader("X-Sharer-User-Id") Long ownerId,
                                                      @RequestParam String state,
                                                      @RequestParam Integer from,
-                                                     @RequestParam Integer size) {
+                                                     @RequestParam Integer size,
+                                                     @RequestParam(required = false) String cursor,
+                                                     HttpServletResponse response) {
         log.info("Получение списка бронирований для всех вещей пользователя по его id");
-        return bookingService.findAllByOwnerId(ownerId, state, from, size);
+        List<BookingResponseDto> bookings = cursor == null
+                ? bookingService.findAllByOwnerId(ownerId, state, from, size)
+                : bookingService.findAllByOwnerIdAfter(ownerId, state, Cursor.decode(cursor), size);
+        setNextCursor(response, bookings, size);
+        return bookings;
+    }
+
+    private void setNextCursor(HttpServletResponse response, List<BookingResponseDto> bookings, Integer size) {
+        if (bookings.size() == size) {
+            BookingResponseDto last = bookings.get(bookings.size() - 1);
+            response.setHeader(Cursor.NEXT_CURSOR_HEADER, Cursor.of(last.getStart(), last.getId()).encode());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат одного бронирования из пакета: либо созданное бронирование, либо причина отказа.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingBatchResultDto {
+    private BookingResponseDto booking;
+    private String error;
+
+    public static BookingBatchResultDto created(BookingResponseDto booking) {
+        return new BookingBatchResultDto(booking, null);
+    }
+
+    public static BookingBatchResultDto rejected(String error) {
+        return new BookingBatchResultDto(null, error);
+    }
+}
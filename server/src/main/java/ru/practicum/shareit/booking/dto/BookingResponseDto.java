@@ -22,4 +22,13 @@ public class BookingResponseDto {
     private ItemDto item;
     private UserDto booker;
     private Status status;
+
+    //Для запросов с проекцией в DTO (SELECT new ...):
+    public BookingResponseDto(Long id, LocalDateTime start, LocalDateTime end,
+                              Long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                              Long itemRequestId, Long bookerId, String bookerName, String bookerEmail,
+                              Status status) {
+        this(id, start, end, new ItemDto(itemId, itemName, itemDescription, itemAvailable, itemRequestId),
+                new UserDto(bookerId, bookerName, bookerEmail), status);
+    }
 }
\ No newline at end of file
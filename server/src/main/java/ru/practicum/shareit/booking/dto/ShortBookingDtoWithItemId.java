@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShortBookingDtoWithItemId {
+    private Long id;
+    private Long itemId;
+    private Long bookerId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
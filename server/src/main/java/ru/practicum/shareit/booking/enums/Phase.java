@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.enums;
+
+import java.time.LocalDateTime;
+
+/**
+ * Положение бронирования относительно текущего момента. Хранится в bookings.phase и продвигается
+ * BookingPhaseScheduler, поэтому может отставать от границ start/end на время срабатывания планировщика.
+ */
+public enum Phase {
+    FUTURE,
+    CURRENT,
+    PAST;
+
+    public static Phase of(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        if (!end.isAfter(now)) {
+            return PAST;
+        }
+        if (!start.isAfter(now)) {
+            return CURRENT;
+        }
+        return FUTURE;
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking.mapper;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.dto.ShortBookingDto;
+import ru.practicum.shareit.booking.dto.ShortBookingDtoWithItemId;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.mapper.ItemMapper;
@@ -45,6 +46,15 @@ public class BookingMapper {
         );
     }
 
+    public static ShortBookingDto toShortBookingDto(ShortBookingDtoWithItemId booking) {
+        return new ShortBookingDto(
+                booking.getId(),
+                booking.getBookerId(),
+                booking.getStart(),
+                booking.getEnd()
+        );
+    }
+
     public static List<BookingResponseDto> toBookingResponseDtoList(List<Booking> bookings) {
         return bookings.stream()
                 .map(BookingMapper::toBookingResponseDto)
@@ -1,9 +1,10 @@
 package ru.practicum.shareit.booking.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import ru.practicum.shareit.booking.enums.Phase;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
@@ -20,25 +21,57 @@ import java.time.LocalDateTime;
 @ToString
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
     @Column(name = "start_date", nullable = false)
     private LocalDateTime start;
     @Column(name = "end_date", nullable = false)
     private LocalDateTime end;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @ToString.Exclude
     @JoinColumn(name = "item_id", nullable = false)
     private Item item;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @ToString.Exclude
     @JoinColumn(name = "booker_id")
     private User booker;
     @Enumerated(EnumType.STRING)
     @Column(name = "status")
     private Status status;
+    //Копия items.owner_id, чтобы бронирования собственника выбирались по индексу без соединения с items.
+    //Заполняется при создании, у строк, созданных до V11__add_bookings_owner_id - BookingOwnerBackfill
+    @Column(name = "owner_id", nullable = false, updatable = false)
+    @EqualsAndHashCode.Exclude
+    private Long ownerId;
+    //Фазу продвигает BookingPhaseScheduler массовыми UPDATE, при сохранении бронирования она не перезаписывается
+    @Enumerated(EnumType.STRING)
+    @Column(name = "phase", nullable = false, updatable = false)
+    @EqualsAndHashCode.Exclude
+    private Phase phase;
+    //Версию ведёт Hibernate: подтверждение уже изменённого бронирования завершится конфликтом
+    @Version
+    @Column(name = "version", nullable = false)
+    @EqualsAndHashCode.Exclude
+    private long version;
+
+    public Booking(Long id, LocalDateTime start, LocalDateTime end, Item item, User booker, Status status) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.item = item;
+        this.booker = booker;
+        this.status = status;
+    }
+
+    @PrePersist
+    void initDerivedColumns() {
+        phase = Phase.of(start, end, LocalDateTime.now());
+        if (ownerId == null && item != null && item.getOwner() != null) {
+            ownerId = item.getOwner().getId();
+        }
+    }
 }
\ No newline at end of file
@@ -1,8 +1,14 @@
 package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.ShortBookingDto;
+import ru.practicum.shareit.booking.dto.ShortBookingDtoWithItemId;
+import ru.practicum.shareit.booking.enums.Phase;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
@@ -10,76 +16,109 @@ import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-
-    //Получение всех бронирований пользователя:
-    List<Booking> findAllByBookerIdOrderByStartDesc(Long id, PageRequest pageRequest);
-
-    List<Booking> findAllByBookerIdAndStatusIsOrderByStartDesc(Long id, Status status, PageRequest pageRequest);
-
-    List<Booking> findAllByBookerIdAndEndIsAfterAndStartIsBeforeOrderByStartDesc(Long id,
-                                                                                 LocalDateTime end,
-                                                                                 LocalDateTime start,
-                                                                                 PageRequest pageRequest);
-
-    List<Booking> findAllByBookerIdAndEndIsBeforeOrderByStartDesc(Long id, LocalDateTime time, PageRequest pageRequest);
-
-    List<Booking> findAllByBookerIdAndStartIsAfterOrderByStartDesc(Long id, LocalDateTime time, PageRequest pageRequest);
-
-    List<Booking> findAllByBookerIdAndStartIsAfterAndStatusIsOrderByStartDesc(Long bookerId,
-                                                                              LocalDateTime start,
-                                                                              Status status,
-                                                                              PageRequest pageRequest);
-    //Получение всех бронирований для все вещей пользователя:
-
-    @Query("SELECT b FROM Booking b " +
-            "INNER JOIN Item i ON b.item.id = i.id " +
-            "WHERE i.owner.id = :ownerId " +
-            "ORDER BY b.start DESC")
-    List<Booking> findAllBookingsByOwnerId(Long ownerId, PageRequest pageRequest);
-
-    @Query("SELECT b FROM Booking b " +
-            "INNER JOIN Item i ON b.item.id = i.id " +
-            "WHERE i.owner.id = :ownerId " +
-            "AND :time BETWEEN b.start AND b.end " +
-            "ORDER BY b.start DESC")
-    List<Booking> findAllBookingsByOwnerIdWithStatusCurrent(Long ownerId, LocalDateTime time, PageRequest pageRequest);
-
-    @Query("SELECT b FROM Booking b " +
-            "INNER JOIN Item i ON b.item.id = i.id " +
-            "WHERE i.owner.id = :ownerId " +
-            "AND b.end < :time " +
-            "ORDER BY b.start DESC")
-    List<Booking> findAllBookingsByOwnerIdWithStatusPast(Long ownerId, LocalDateTime time, PageRequest pageRequest);
-
-    @Query("SELECT b FROM Booking b " +
-            "INNER JOIN Item i ON b.item.id = i.id " +
-            "WHERE i.owner.id = :ownerId " +
-            "AND b.start > :time " +
-            "ORDER BY b.start DESC")
-    List<Booking> findAllBookingsByOwnerIdWithStatusFuture(Long ownerId, LocalDateTime time, PageRequest pageRequest);
-
-    @Query("SELECT b FROM Booking b " +
-            "INNER JOIN Item i ON b.item.id = i.id " +
-            "WHERE i.owner.id = :ownerId " +
-            "AND b.start > :time AND b.status = :status " +
-            "ORDER BY b.start DESC")
-    List<Booking> findAllBookingsByOwnerIdWithStatusWaiting(Long ownerId, LocalDateTime time, Status status, PageRequest pageRequest);
-
-    @Query("SELECT b FROM Booking b " +
-            "INNER JOIN Item i ON b.item.id = i.id " +
-            "WHERE i.owner.id = :ownerId " +
-            "AND b.status = :status " +
-            "ORDER BY b.start DESC")
-    List<Booking> findAllBookingsByOwnerIdWithStatusRejected(Long ownerId, Status status, PageRequest pageRequest);
+    @Override
+    @EntityGraph(attributePaths = {"item", "booker"})
+    Optional<Booking> findById(Long id);
+
+    //Списки бронирований сразу в DTO, без загрузки сущностей. Состояние задаётся фазами и статусами,
+    //страница - курсором (start, id): для первой страницы передаются Cursor.MAX_TIME и Long.MAX_VALUE.
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingResponseDto(b.id, b.start, b.end, " +
+            "i.id, i.name, i.description, i.available, r.id, u.id, u.name, u.email, b.status) " +
+            "FROM Booking b " +
+            "JOIN b.item i " +
+            "JOIN b.booker u " +
+            "LEFT JOIN i.itemRequest r " +
+            "WHERE b.booker.id = :bookerId " +
+            "AND b.phase IN :phases " +
+            "AND b.status IN :statuses " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findBookingResponseDtosByBookerId(Long bookerId,
+                                                               List<Phase> phases,
+                                                               List<Status> statuses,
+                                                               LocalDateTime cursorStart,
+                                                               Long cursorId,
+                                                               PageRequest pageRequest);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingResponseDto(b.id, b.start, b.end, " +
+            "i.id, i.name, i.description, i.available, r.id, u.id, u.name, u.email, b.status) " +
+            "FROM Booking b " +
+            "JOIN b.item i " +
+            "JOIN b.booker u " +
+            "LEFT JOIN i.itemRequest r " +
+            "WHERE b.ownerId = :ownerId " +
+            "AND b.phase IN :phases " +
+            "AND b.status IN :statuses " +
+            "AND (b.start < :cursorStart OR (b.start = :cursorStart AND b.id < :cursorId)) " +
+            "ORDER BY b.start DESC, b.id DESC")
+    List<BookingResponseDto> findBookingResponseDtosByOwnerId(Long ownerId,
+                                                              List<Phase> phases,
+                                                              List<Status> statuses,
+                                                              LocalDateTime cursorStart,
+                                                              Long cursorId,
+                                                              PageRequest pageRequest);
 
     // Для остального:
     Booking findFirstByBookerAndItemAndEndIsBeforeOrderByEndDesc(User user, Item item, LocalDateTime now);
 
-    @Query("SELECT b FROM Booking b " +
-            "INNER JOIN Item i ON b.item.id = i.id " +
-            "WHERE i.id = :itemId " +
+    //Ещё не закончившиеся бронирования вещи с заданным статусом, по началу (для BookingIntervalIndex):
+    @Query("SELECT new ru.practicum.shareit.booking.dto.ShortBookingDto(b.id, b.booker.id, b.start, b.end) " +
+            "FROM Booking b " +
+            "WHERE b.item.id = :itemId AND b.status = :status AND b.end > :time " +
+            "ORDER BY b.start")
+    List<ShortBookingDto> findBookingIntervals(Long itemId, Status status, LocalDateTime time);
+
+    //Материализация фаз (BookingPhaseScheduler), по индексам (phase, end_date) и (phase, start_date):
+    @Modifying
+    @Query("UPDATE Booking b SET b.phase = :phase WHERE b.phase IN :phases AND b.end <= :time")
+    int updatePhaseOfEnded(List<Phase> phases, Phase phase, LocalDateTime time);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.phase = :phase WHERE b.phase = :currentPhase AND b.start <= :time")
+    int updatePhaseOfStarted(Phase currentPhase, Phase phase, LocalDateTime time);
+
+    @Query("SELECT MIN(b.start) FROM Booking b WHERE b.phase = :phase")
+    LocalDateTime findFirstStartByPhase(Phase phase);
+
+    @Query("SELECT MIN(b.end) FROM Booking b WHERE b.phase = :phase")
+    LocalDateTime findFirstEndByPhase(Phase phase);
+
+    //Порция бронирований без bookings.owner_id после afterId (BookingOwnerBackfill):
+    @Query("SELECT b.id FROM Booking b WHERE b.ownerId IS NULL AND b.id > :afterId ORDER BY b.id")
+    List<Long> findIdsWithoutOwnerId(Long afterId, PageRequest pageRequest);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.ownerId = (SELECT i.owner.id FROM Item i WHERE i.id = b.item.id) " +
+            "WHERE b.id IN :ids AND b.ownerId IS NULL")
+    int fillOwnerId(List<Long> ids);
+
+    //Вещь бронирования без загрузки самого бронирования (вещь у бронирования не меняется):
+    @Query("SELECT b.item.id FROM Booking b WHERE b.id = :bookingId")
+    Optional<Long> findItemIdById(Long bookingId);
+
+    //Последнее и следующее бронирование вещи (вызывать с PageRequest.of(0, 1)):
+    @Query("SELECT new ru.practicum.shareit.booking.dto.ShortBookingDto(b.id, b.booker.id, b.start, b.end) " +
+            "FROM Booking b " +
+            "WHERE b.item.id = :itemId AND b.status <> :status AND b.start < :time " +
             "ORDER BY b.start DESC")
-    List<Booking> findAllBookingsItem(Long itemId);
-}
\ No newline at end of file
+    List<ShortBookingDto> findLastBooking(Long itemId, Status status, LocalDateTime time, PageRequest pageRequest);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.ShortBookingDto(b.id, b.booker.id, b.start, b.end) " +
+            "FROM Booking b " +
+            "WHERE b.item.id = :itemId AND b.status <> :status AND b.start > :time " +
+            "ORDER BY b.start ASC")
+    List<ShortBookingDto> findNextBooking(Long itemId, Status status, LocalDateTime time, PageRequest pageRequest);
+
+    //Последнее и следующее бронирование для каждой вещи из списка одним запросом:
+    @Query("SELECT new ru.practicum.shareit.booking.dto.ShortBookingDtoWithItemId(b.id, b.item.id, b.booker.id, b.start, b.end) " +
+            "FROM Booking b " +
+            "WHERE b.item.id IN :itemIds AND b.status <> :status " +
+            "AND (b.start = (SELECT MAX(l.start) FROM Booking l " +
+            "WHERE l.item.id = b.item.id AND l.status <> :status AND l.start < :time) " +
+            "OR b.start = (SELECT MIN(n.start) FROM Booking n " +
+            "WHERE n.item.id = b.item.id AND n.status <> :status AND n.start > :time))")
+    List<ShortBookingDtoWithItemId> findLastAndNextBookingsForItems(List<Long> itemIds, Status status, LocalDateTime time);
+}
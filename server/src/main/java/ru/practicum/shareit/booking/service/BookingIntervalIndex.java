@@ -0,0 +1,261 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.ShortBookingDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Подтверждённые (APPROVED) и ещё не закончившиеся бронирования каждой вещи в памяти.
+ * Интервалы одной вещи не пересекаются, поэтому хранятся в TreeSet по началу: для проверки
+ * пересечения достаточно одного соседа слева, O(log n) без обращения к БД.
+ * Интервалы вещи загружаются из БД при первом обращении к ней. Подтверждение резервирует интервал
+ * под блокировкой вещи до коммита и снимает резерв при откате, поэтому параллельные approve
+ * одного времени в пределах экземпляра сервера не проходят оба. Между экземплярами это гарантирует
+ * ограничение bookings_no_overlap в PostgreSQL (V8__create_bookings_no_overlap).
+ * Из этого же индекса отдаётся календарь занятости вещи (GET /items/{itemId}/availability).
+ * Число вещей в индексе ограничено: вытесняются давно не использовавшиеся вещи, у которых нет
+ * резервов незавершённых транзакций - такой резерв есть только в памяти и из БД не восстанавливается.
+ * Интервалы всегда загружаются с основной БД: по индексу принимаются решения о подтверждении,
+ * и отставшая реплика не должна попасть в него через чтение календаря.
+ */
+@Component
+public class BookingIntervalIndex {
+    private final BookingRepository bookingRepository;
+    private final int maxItems;
+    private final TransactionTemplate primaryTransactionTemplate;
+    private final boolean replicaRouting;
+    //Вещи в порядке последнего обращения, под блокировкой самой карты:
+    private final LinkedHashMap<Long, ItemIntervals> items = new LinkedHashMap<>(16, 0.75f, true);
+
+    public BookingIntervalIndex(BookingRepository bookingRepository, PlatformTransactionManager transactionManager,
+                                @Value("${shareit.booking.interval-index.max-items:10000}") int maxItems,
+                                @Value("${shareit.datasource.replica.urls:}") String replicaUrls) {
+        this.bookingRepository = bookingRepository;
+        this.maxItems = maxItems;
+        //Реплики подключает ReadReplicaDataSourceConfig; без них чтение и так идёт с основной БД
+        this.replicaRouting = !replicaUrls.replace(",", "").isBlank();
+        //Отдельная пишущая транзакция: ReadReplicaRoutingDataSource отправляет её соединение на основную БД
+        this.primaryTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.primaryTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isFree(Long itemId, LocalDateTime start, LocalDateTime end) {
+        ItemIntervals intervals = intervals(itemId);
+        synchronized (intervals) {
+            return intervals.findOverlap(start, end) == null;
+        }
+    }
+
+    /**
+     * Занимает интервал за бронированием, если он свободен. При откате текущей транзакции интервал освобождается.
+     */
+    public boolean tryReserve(Long itemId, Long bookingId, LocalDateTime start, LocalDateTime end) {
+        boolean pending = TransactionSynchronizationManager.isSynchronizationActive();
+        ItemIntervals intervals;
+        while (true) {
+            intervals = intervals(itemId);
+            synchronized (intervals) {
+                //Вещь могли вытеснить между поиском и блокировкой - тогда резервировать в её актуальной копии:
+                if (intervals.evicted) {
+                    continue;
+                }
+                Interval overlap = intervals.findOverlap(start, end);
+                if (overlap != null) {
+                    return overlap.bookingId.equals(bookingId);
+                }
+                intervals.byStart.add(new Interval(bookingId, start, end));
+                if (pending) {
+                    intervals.pending++;
+                }
+                break;
+            }
+        }
+        if (pending) {
+            ItemIntervals reserved = intervals;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    synchronized (reserved) {
+                        reserved.pending--;
+                        if (status != STATUS_COMMITTED) {
+                            reserved.remove(bookingId, start);
+                        }
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Занятые подтверждёнными бронированиями интервалы вещи в пределах [from, to), по возрастанию начала.
+     * Интервалы обрезаются по границам периода. Закончившиеся бронирования в индексе не хранятся.
+     */
+    public List<AvailabilityIntervalDto> findBusy(Long itemId, LocalDateTime from, LocalDateTime to) {
+        ItemIntervals intervals = intervals(itemId);
+        List<AvailabilityIntervalDto> busy = new ArrayList<>();
+        synchronized (intervals) {
+            intervals.prune(LocalDateTime.now());
+            //Бронирование, начавшееся до from, может ещё продолжаться:
+            Interval before = intervals.byStart.floor(Interval.probe(from, Long.MAX_VALUE));
+            Interval first = Interval.probe(before != null ? before.start : from, Long.MIN_VALUE);
+            for (Interval interval : intervals.byStart.subSet(first, true, Interval.probe(to, Long.MIN_VALUE), false)) {
+                if (interval.end.isAfter(from)) {
+                    busy.add(new AvailabilityIntervalDto(interval.start.isBefore(from) ? from : interval.start,
+                            interval.end.isAfter(to) ? to : interval.end));
+                }
+            }
+        }
+        return busy;
+    }
+
+    public void release(Long itemId, Long bookingId, LocalDateTime start) {
+        ItemIntervals intervals;
+        synchronized (items) {
+            intervals = items.get(itemId);
+        }
+        if (intervals != null) {
+            synchronized (intervals) {
+                intervals.remove(bookingId, start);
+            }
+        }
+    }
+
+    //Сбросить вещь, чтобы при следующем обращении её интервалы были загружены из БД заново:
+    public void evict(Long itemId) {
+        ItemIntervals intervals;
+        synchronized (items) {
+            intervals = items.remove(itemId);
+        }
+        if (intervals != null) {
+            synchronized (intervals) {
+                intervals.evicted = true;
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (items) {
+            return items.size();
+        }
+    }
+
+    private ItemIntervals intervals(Long itemId) {
+        ItemIntervals intervals;
+        synchronized (items) {
+            intervals = items.computeIfAbsent(itemId, id -> new ItemIntervals());
+            if (items.size() > maxItems) {
+                evictIdle(itemId);
+            }
+        }
+        synchronized (intervals) {
+            if (!intervals.loaded) {
+                for (ShortBookingDto booking : loadIntervals(itemId)) {
+                    intervals.byStart.add(new Interval(booking.getId(), booking.getStart(), booking.getEnd()));
+                }
+                intervals.loaded = true;
+            }
+        }
+        return intervals;
+    }
+
+    private List<ShortBookingDto> loadIntervals(Long itemId) {
+        //Соединение транзакции только для чтения (например, календаря занятости) может быть взято с реплики.
+        //Отдельная транзакция берёт второе соединение - уже из пула основной БД, а не из пула реплики:
+        if (replicaRouting && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return primaryTransactionTemplate.execute(status ->
+                    bookingRepository.findBookingIntervals(itemId, Status.APPROVED, LocalDateTime.now()));
+        }
+        return bookingRepository.findBookingIntervals(itemId, Status.APPROVED, LocalDateTime.now());
+    }
+
+    //Вызывается под блокировкой items. Вещи с резервами незавершённых транзакций пропускаются:
+    private void evictIdle(Long keptItemId) {
+        Iterator<Map.Entry<Long, ItemIntervals>> eldest = items.entrySet().iterator();
+        while (items.size() > maxItems && eldest.hasNext()) {
+            Map.Entry<Long, ItemIntervals> entry = eldest.next();
+            ItemIntervals intervals = entry.getValue();
+            synchronized (intervals) {
+                if (intervals.pending == 0 && !entry.getKey().equals(keptItemId)) {
+                    intervals.evicted = true;
+                    eldest.remove();
+                }
+            }
+        }
+    }
+
+    private static final class Interval {
+        //Порядок по началу, при равном начале - по id: старые подтверждённые бронирования
+        //с одинаковым началом не затирают друг друга
+        private static final Comparator<Interval> ORDER = Comparator.comparing((Interval interval) -> interval.start)
+                .thenComparing(interval -> interval.bookingId);
+        private final Long bookingId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        Interval(Long bookingId, LocalDateTime start, LocalDateTime end) {
+            this.bookingId = bookingId;
+            this.start = start;
+            this.end = end;
+        }
+
+        //Граница для поиска в наборе интервалов:
+        static Interval probe(LocalDateTime start, long bookingId) {
+            return new Interval(bookingId, start, start);
+        }
+    }
+
+    private static final class ItemIntervals {
+        private final TreeSet<Interval> byStart = new TreeSet<>(Interval.ORDER);
+        private boolean loaded;
+        //Число резервов, транзакции которых ещё не завершились:
+        private int pending;
+        private boolean evicted;
+
+        void remove(Long bookingId, LocalDateTime start) {
+            byStart.remove(Interval.probe(start, bookingId));
+        }
+
+        //Интервалы полуоткрытые [start, end): бронирование может начаться в момент окончания предыдущего.
+        //Проверяются интервалы с последним началом до end - у новых данных такой интервал один:
+        Interval findOverlap(LocalDateTime start, LocalDateTime end) {
+            prune(LocalDateTime.now());
+            Interval last = byStart.lower(Interval.probe(end, Long.MIN_VALUE));
+            if (last == null) {
+                return null;
+            }
+            for (Interval before : byStart.headSet(last, true).descendingSet()) {
+                if (!before.start.equals(last.start)) {
+                    break;
+                }
+                if (before.end.isAfter(start)) {
+                    return before;
+                }
+            }
+            return null;
+        }
+
+        void prune(LocalDateTime now) {
+            while (!byStart.isEmpty() && !byStart.first().end.isAfter(now)) {
+                byStart.pollFirst();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.util.List;
+
+/**
+ * Заполняет bookings.owner_id у строк, созданных до его появления (V11__add_bookings_owner_id).
+ * Выбираются только строки с пустым owner_id, порциями по shareit.booking.owner-backfill.chunk-size,
+ * каждая порция - в своей транзакции, поэтому блокировки держатся недолго. Проход заканчивается, как только
+ * незаполненных строк не осталось; поиск пустых owner_id идёт по индексу (owner_id, start_date DESC),
+ * поэтому после заполнения при старте выполняется один короткий запрос.
+ * Ограничение NOT NULL на owner_id добавляется отдельной миграцией в следующем выпуске, когда проход
+ * уже завершился на всех базах: миграции выполняются до запуска приложения, а значит и до этого прохода.
+ */
+@Slf4j
+@Component
+public class BookingOwnerBackfill {
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public BookingOwnerBackfill(BookingRepository bookingRepository, PlatformTransactionManager transactionManager,
+                                @Value("${shareit.booking.owner-backfill.chunk-size:1000}") int chunkSize) {
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        long updated = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = bookingRepository.findIdsWithoutOwnerId(afterId, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer count = transactionTemplate.execute(status -> bookingRepository.fillOwnerId(ids));
+            updated += count != null ? count : 0;
+            //Строки не перечитываются: если строку заполнить не удалось, проход не зацикливается на ней
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        if (updated > 0) {
+            log.info("Заполнен собственник у бронирований: " + updated);
+        }
+    }
+}
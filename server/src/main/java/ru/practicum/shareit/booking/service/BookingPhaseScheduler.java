@@ -0,0 +1,127 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.enums.Phase;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Продвигает фазы бронирований (FUTURE -> CURRENT -> PAST) в колонке bookings.phase.
+ * Поток спит до ближайшей границы: самого раннего начала среди FUTURE и самого раннего окончания среди CURRENT,
+ * оба берутся из БД по индексам (phase, start_date) и (phase, end_date). Созданное бронирование с более ранним
+ * началом переносит пробуждение раньше. Наступившие переходы выполняются двумя массовыми UPDATE.
+ * Бронирования, созданные другими экземплярами сервера, подхватываются не позже чем через
+ * shareit.booking.phase.max-sleep; повторное выполнение перехода другим экземпляром ничего не меняет.
+ */
+@Slf4j
+@Component
+public class BookingPhaseScheduler {
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxSleep;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "booking-phase-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> nextRun;
+    private LocalDateTime nextRunAt;
+
+    public BookingPhaseScheduler(BookingRepository bookingRepository, PlatformTransactionManager transactionManager,
+                                 @Value("${shareit.booking.phase.max-sleep:1m}") Duration maxSleep) {
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxSleep = maxSleep;
+    }
+
+    @PostConstruct
+    public void start() {
+        wakeUpAt(LocalDateTime.now());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Бронирование может начаться раньше запланированного пробуждения. Пока транзакция не закоммичена,
+     * планировщик его не видит, поэтому пробуждение переносится после коммита.
+     */
+    public void onBookingSaved(LocalDateTime start) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUpAt(start);
+                }
+            });
+        } else {
+            wakeUpAt(start);
+        }
+    }
+
+    /**
+     * Переводит бронирования, чьи границы уже наступили, в следующую фазу.
+     * Возвращает ближайшую ещё не наступившую границу или null, если переходов больше не ожидается.
+     */
+    public LocalDateTime advance(LocalDateTime now) {
+        return transactionTemplate.execute(status -> {
+            int ended = bookingRepository.updatePhaseOfEnded(List.of(Phase.FUTURE, Phase.CURRENT), Phase.PAST, now);
+            int started = bookingRepository.updatePhaseOfStarted(Phase.FUTURE, Phase.CURRENT, now);
+            if (ended + started > 0) {
+                log.info("Фазы бронирований обновлены: началось " + started + ", закончилось " + ended);
+            }
+            LocalDateTime nextStart = bookingRepository.findFirstStartByPhase(Phase.FUTURE);
+            LocalDateTime nextEnd = bookingRepository.findFirstEndByPhase(Phase.CURRENT);
+            if (nextStart == null || nextEnd != null && nextEnd.isBefore(nextStart)) {
+                return nextEnd;
+            }
+            return nextStart;
+        });
+    }
+
+    private void run() {
+        synchronized (this) {
+            nextRun = null;
+            nextRunAt = null;
+        }
+        LocalDateTime next = null;
+        try {
+            next = advance(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось обновить фазы бронирований", e);
+        }
+        LocalDateTime latest = LocalDateTime.now().plus(maxSleep);
+        wakeUpAt(next == null || next.isAfter(latest) ? latest : next);
+    }
+
+    //Пробуждение только переносится на более раннее время, уже запланированное раньше остаётся в силе:
+    private synchronized void wakeUpAt(LocalDateTime time) {
+        if (executor.isShutdown() || nextRunAt != null && !time.isBefore(nextRunAt)) {
+            return;
+        }
+        if (nextRun != null) {
+            nextRun.cancel(false);
+        }
+        long delay = Math.max(0, LocalDateTime.now().until(time, ChronoUnit.MICROS));
+        nextRun = executor.schedule(this::run, delay, TimeUnit.MICROSECONDS);
+        nextRunAt = time;
+    }
+}
@@ -1,13 +1,17 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.pagination.Cursor;
 
 import java.util.List;
 
 public interface BookingService {
     BookingResponseDto create(Long userId, BookingRequestDto bookingRequestDto);
 
+    List<BookingBatchResultDto> createAll(Long userId, List<BookingRequestDto> bookingRequestDtos);
+
     BookingResponseDto approve(Long userId, Long bookingId, Boolean approved);
 
     BookingResponseDto getBooking(Long userId, Long bookingId);
@@ -15,4 +19,8 @@ public interface BookingService {
     List<BookingResponseDto> findAllByBookerId(Long userId, String state, Integer from, Integer size);
 
     List<BookingResponseDto> findAllByOwnerId(Long ownerId, String state, Integer from, Integer size);
+
+    List<BookingResponseDto> findAllByBookerIdAfter(Long userId, String state, Cursor cursor, Integer size);
+
+    List<BookingResponseDto> findAllByOwnerIdAfter(Long ownerId, String state, Cursor cursor, Integer size);
 }
\ No newline at end of file
@@ -2,8 +2,17 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingBatchRequestDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.enums.Status;
@@ -12,15 +21,19 @@ import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exceptions.*;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceChecker;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.datasource.ReplicaLagTracker;
 
-import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -28,9 +41,16 @@ import java.util.stream.Collectors;
 @Transactional
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final int MAX_APPROVE_ATTEMPTS = 3;
     private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserExistenceChecker userExistenceChecker;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ReplicaLagTracker replicaLagTracker;
+    private final ItemLocks itemLocks;
+    private final PlatformTransactionManager transactionManager;
+    private final BookingPhaseScheduler bookingPhaseScheduler;
 
     @Override
     public BookingResponseDto create(Long userId, BookingRequestDto bookingRequestDto) {
@@ -41,11 +61,11 @@ public class BookingServiceImpl implements BookingService {
         Item item = itemRepository.findById(itemId).orElseThrow(() ->
                 new NotFoundException("Вещь с id " + itemId + " не найдена в базе данных"));
         checkAvailabilityForBooking(item);
-        if (Objects.equals(item.getOwner().getId(), userId)) {
-            throw new NotFoundException("Владелец вещи не может её сам забронировать");
-        }
+        checkNotOwner(item, userId);
+        checkFree(itemId, bookingRequestDto.getStart(), bookingRequestDto.getEnd());
         Booking booking = BookingMapper.toBooking(bookingRequestDto, booker, item);
         Booking newBooking = bookingRepository.save(booking);
+        bookingPhaseScheduler.onBookingSaved(newBooking.getStart());
         log.info("Пользователь с id = " + userId +
                 " создал запрос на бронирование вещи с id = " + itemId +
                 " от арендодателя с id = " + item.getOwner().getId() + ". id бронирования = " + newBooking.getId() +
@@ -53,10 +73,105 @@ public class BookingServiceImpl implements BookingService {
         return BookingMapper.toBookingResponseDto(newBooking);
     }
 
+    /**
+     * Пакет проверяется целиком до записи: автор и все вещи загружаются двумя запросами,
+     * ошибка в одном бронировании не мешает остальным. Допустимые бронирования сохраняются
+     * одним saveAll (вставки идут пачками по hibernate.jdbc.batch_size), результаты - в порядке пакета.
+     */
     @Override
-    public BookingResponseDto approve(Long userId, Long bookingId, Boolean approved) {
-        User user = userRepository.findById(userId).orElseThrow(() ->
+    public List<BookingBatchResultDto> createAll(Long userId, List<BookingRequestDto> bookingRequestDtos) {
+        //Сервер не полагается на проверки шлюза: пакет без списка или больше допустимого отклоняется целиком,
+        //а неполные бронирования ниже отклоняются по отдельности
+        if (bookingRequestDtos == null || bookingRequestDtos.size() > BookingBatchRequestDto.MAX_SIZE) {
+            throw new ValidationException("Пакет должен содержать не более " + BookingBatchRequestDto.MAX_SIZE +
+                    " бронирований");
+        }
+        User booker = userRepository.findById(userId).orElseThrow(() ->
                 new NotFoundException("Пользователь с id " + userId + " не найден в базе данных"));
+        List<Long> itemIds = bookingRequestDtos.stream()
+                .filter(Objects::nonNull)
+                .map(BookingRequestDto::getItemId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<BookingBatchResultDto> results = new ArrayList<>(bookingRequestDtos.size());
+        Booking[] bookings = new Booking[bookingRequestDtos.size()];
+        for (int i = 0; i < bookings.length; i++) {
+            BookingRequestDto bookingRequestDto = bookingRequestDtos.get(i);
+            try {
+                checkComplete(bookingRequestDto);
+                checkTimeConflict(bookingRequestDto.getStart(), bookingRequestDto.getEnd());
+                Item item = items.get(bookingRequestDto.getItemId());
+                if (item == null) {
+                    throw new NotFoundException("Вещь с id " + bookingRequestDto.getItemId() + " не найдена в базе данных");
+                }
+                checkAvailabilityForBooking(item);
+                checkNotOwner(item, userId);
+                checkFree(item.getId(), bookingRequestDto.getStart(), bookingRequestDto.getEnd());
+                bookings[i] = BookingMapper.toBooking(bookingRequestDto, booker, item);
+                results.add(null);
+            } catch (ValidationException | NotFoundException | NotAvailableException | TimeConflictException e) {
+                results.add(BookingBatchResultDto.rejected(e.getMessage()));
+            }
+        }
+        List<Booking> accepted = new ArrayList<>();
+        for (Booking booking : bookings) {
+            if (booking != null) {
+                accepted.add(booking);
+            }
+        }
+        List<Booking> saved = bookingRepository.saveAll(accepted);
+        int next = 0;
+        for (int i = 0; i < bookings.length; i++) {
+            if (bookings[i] != null) {
+                Booking newBooking = saved.get(next++);
+                bookingPhaseScheduler.onBookingSaved(newBooking.getStart());
+                results.set(i, BookingBatchResultDto.created(BookingMapper.toBookingResponseDto(newBooking)));
+            }
+        }
+        log.info("Пользователь с id = " + userId + " создал пакет бронирований: принято " + accepted.size() +
+                " из " + bookings.length);
+        return results;
+    }
+
+    /**
+     * Попытка выполняется в своей транзакции под блокировкой вещи (ItemLocks), поэтому подтверждения
+     * одной вещи в пределах экземпляра сервера идут по очереди. Параллельное решение по тому же бронированию
+     * с другого экземпляра отсекает версия бронирования (@Version): при конфликте интервалы вещи перечитываются
+     * из БД и попытка повторяется (не более MAX_APPROVE_ATTEMPTS раз) - уже с актуальным статусом бронирования.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BookingResponseDto approve(Long userId, Long bookingId, Boolean approved) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        //Вещь ищется в своей транзакции: EntityManager области SUPPORTS держал бы соединение из пула
+        //всё время ожидания блокировки вещи, и при очереди длиннее пула попытке под блокировкой
+        //не хватало бы соединения
+        Long itemId = transactionTemplate.execute(status -> bookingRepository.findItemIdById(bookingId).orElse(null));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return itemLocks.withLock(itemId, () ->
+                        transactionTemplate.execute(status -> approveOnce(userId, bookingId, approved)));
+            } catch (OptimisticLockingFailureException e) {
+                if (itemId != null) {
+                    bookingIntervalIndex.evict(itemId);
+                }
+                //Внутри внешней транзакции повторять бессмысленно: она уже помечена на откат
+                if (attempt >= MAX_APPROVE_ATTEMPTS || TransactionSynchronizationManager.isActualTransactionActive()) {
+                    throw e;
+                }
+                log.info("Бронирование с id = " + bookingId + " изменено параллельным запросом, попытка " +
+                        (attempt + 1));
+            }
+        }
+    }
+
+    private BookingResponseDto approveOnce(Long userId, Long bookingId, Boolean approved) {
+        if (!userExistenceChecker.exists(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден в базе данных");
+        }
         Booking booking = bookingRepository.findById(bookingId).orElseThrow(() ->
                 new NotFoundException("Запрос на бронирование с id " + bookingId + " не найден в базе данных"));
         if (!booking.getStart().isAfter(LocalDateTime.now())) {
@@ -68,12 +183,28 @@ public class BookingServiceImpl implements BookingService {
         if (!booking.getStatus().equals(Status.WAITING)) {
             throw new NotAvailableException("Решение по данному запросу на бронирование уже принято");
         }
+        Long itemId = booking.getItem().getId();
         if (approved) {
+            if (!bookingIntervalIndex.tryReserve(itemId, bookingId, booking.getStart(), booking.getEnd())) {
+                throw new NotAvailableException("Вещь с id " + itemId + " уже забронирована на это время");
+            }
             booking.setStatus(Status.APPROVED);
         } else {
             booking.setStatus(Status.REJECTED);
         }
         Booking newBooking = bookingRepository.save(booking);
+        if (approved) {
+            //Подтверждение другим экземпляром сервера индекс не видит, его отсекает ограничение bookings_no_overlap:
+            try {
+                bookingRepository.flush();
+            } catch (DataIntegrityViolationException e) {
+                //Индекс не знал о чужом подтверждении - перечитать интервалы вещи из БД:
+                bookingIntervalIndex.evict(itemId);
+                throw new NotAvailableException("Вещь с id " + itemId + " уже забронирована на это время");
+            }
+        }
+        //Владелец и автор бронирования должны сразу увидеть новый статус, даже если реплики отстают:
+        replicaLagTracker.pin(userId, newBooking.getBooker().getId());
         log.info("Пользователь с id = " + newBooking.getBooker().getId() +
                 " получил ответ за запрос на бронирование вещи с id = " + newBooking.getItem().getId() +
                 " от арендодателя с id = " + userId + ". id бронирования = " + newBooking.getId() +
@@ -82,9 +213,11 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public BookingResponseDto getBooking(Long userId, Long bookingId) {
-        User user = userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Пользователь с id " + userId + " не найден в базе данных"));
+        if (!userExistenceChecker.exists(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден в базе данных");
+        }
         return bookingRepository.findById(bookingId)
                 .filter(b -> Objects.equals(b.getBooker().getId(), userId) || Objects.equals(b.getItem().getOwner().getId(), userId))
                 .map(BookingMapper::toBookingResponseDto)
@@ -92,81 +225,69 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookingResponseDto> findAllByBookerId(Long userId, String state, Integer from, Integer size) {
-        User booker = userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Пользователь с id " + userId + " не найден в базе данных"));
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = new ArrayList<>();
-        PageRequest pageRequest = PageRequest.of(from / size, size);
-        switch (state) {
-            case "ALL":
-                bookings.addAll(bookingRepository.findAllByBookerIdOrderByStartDesc(userId, pageRequest));
-                log.info("Поиск всех запросов пользователя c id = " + userId + ", state = ALL, количество = " + bookings.size());
-                break;
-            case "CURRENT":
-                bookings.addAll(bookingRepository.findAllByBookerIdAndEndIsAfterAndStartIsBeforeOrderByStartDesc(userId, now, now, pageRequest));
-                log.info("Поиск всех запросов пользователя c id = " + userId + ", state = CURRENT, количество = " + bookings.size());
-                break;
-            case "PAST":
-                bookings.addAll(bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByStartDesc(userId, now, pageRequest));
-                log.info("Поиск всех запросов пользователя c id = " + userId + ", state = PAST, количество = " + bookings.size());
-                break;
-            case "FUTURE":
-                bookings.addAll(bookingRepository.findAllByBookerIdAndStartIsAfterOrderByStartDesc(userId, now, pageRequest));
-                log.info("Поиск всех запросов пользователя c id = " + userId + ", state = FUTURE, количество = " + bookings.size());
-                break;
-            case "WAITING":
-                bookings.addAll(bookingRepository.findAllByBookerIdAndStartIsAfterAndStatusIsOrderByStartDesc(userId, now,
-                        Status.WAITING, pageRequest));
-                log.info("Поиск всех запросов пользователя c id = " + userId + ", state = WAITING, количество = " + bookings.size());
-                break;
-            case "REJECTED":
-                bookings.addAll(bookingRepository.findAllByBookerIdAndStatusIsOrderByStartDesc(userId, Status.REJECTED, pageRequest));
-                log.info("Поиск всех запросов пользователя c id = " + userId + ", state = REJECTED, количество = " + bookings.size());
-                break;
-            default:
-                throw new ValidationException("Unknown state: " + state);
-        }
+        List<BookingResponseDto> bookings = findAllByBooker(userId, state, Cursor.MAX_TIME, Long.MAX_VALUE,
+                PageRequest.of(from / size, size));
         if (bookings.isEmpty()) {
             throw new NotFoundException("Пользователь " + userId + " ещё не совершал операций по бронированию вещей");
         }
-        return BookingMapper.toBookingResponseDtoList(bookings);
+        return bookings;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BookingResponseDto> findAllByOwnerId(Long ownerId, String state, Integer from, Integer size) {
-        User owner = userRepository.findById(ownerId).orElseThrow(() ->
-                new NotFoundException("Пользователь с id " + ownerId + " не найден в базе данных"));
-        LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings;
-        PageRequest pageRequest = PageRequest.of(from / size, size);
-        switch (state) {
-            case "ALL":
-                bookings = bookingRepository.findAllBookingsByOwnerId(ownerId, pageRequest);
-                break;
-            case "CURRENT":
-                bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusCurrent(ownerId, now, pageRequest);
-                break;
-            case "PAST":
-                bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusPast(ownerId, now, pageRequest);
-                break;
-            case "FUTURE":
-                bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusFuture(ownerId, now, pageRequest);
-                break;
-            case "WAITING":
-                bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusWaiting(ownerId, now,
-                        Status.WAITING, pageRequest);
-                break;
-            case "REJECTED":
-                bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusRejected(ownerId, Status.REJECTED, pageRequest);
-                break;
-            default:
-                throw new ValidationException("Unknown state: " + state);
-        }
+        List<BookingResponseDto> bookings = findAllByOwner(ownerId, state, Cursor.MAX_TIME, Long.MAX_VALUE,
+                PageRequest.of(from / size, size));
         if (bookings.isEmpty()) {
             throw new NotFoundException("Отсутствуют операции по бронированию вещей пользователя " + ownerId);
         }
-        return bookings.stream().map(BookingMapper::toBookingResponseDto).collect(Collectors.toList());
+        return bookings;
+    }
+
+    //Страница после курсора может оказаться пустой, если предыдущая была последней, - это не ошибка:
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingResponseDto> findAllByBookerIdAfter(Long userId, String state, Cursor cursor, Integer size) {
+        checkCursor(cursor);
+        return findAllByBooker(userId, state, cursor.getTime(), cursor.getId(), PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookingResponseDto> findAllByOwnerIdAfter(Long ownerId, String state, Cursor cursor, Integer size) {
+        checkCursor(cursor);
+        return findAllByOwner(ownerId, state, cursor.getTime(), cursor.getId(), PageRequest.of(0, size));
+    }
+
+    private List<BookingResponseDto> findAllByBooker(Long userId, String state, LocalDateTime cursorStart,
+                                                     Long cursorId, PageRequest pageRequest) {
+        if (!userExistenceChecker.exists(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден в базе данных");
+        }
+        BookingStateFilter filter = BookingStateFilter.of(state);
+        List<BookingResponseDto> bookings = bookingRepository.findBookingResponseDtosByBookerId(userId,
+                filter.getPhases(), filter.getStatuses(), cursorStart, cursorId, pageRequest);
+        log.info("Поиск всех запросов пользователя c id = " + userId + ", state = " + state + ", количество = " +
+                bookings.size());
+        return bookings;
+    }
+
+    private List<BookingResponseDto> findAllByOwner(Long ownerId, String state, LocalDateTime cursorStart,
+                                                    Long cursorId, PageRequest pageRequest) {
+        if (!userExistenceChecker.exists(ownerId)) {
+            throw new NotFoundException("Пользователь с id " + ownerId + " не найден в базе данных");
+        }
+        BookingStateFilter filter = BookingStateFilter.of(state);
+        return bookingRepository.findBookingResponseDtosByOwnerId(ownerId, filter.getPhases(), filter.getStatuses(),
+                cursorStart, cursorId, pageRequest);
+    }
+
+    private void checkCursor(Cursor cursor) {
+        if (cursor.getTime() == null || cursor.getId() == null) {
+            throw new ValidationException("Курсор бронирований должен содержать дату начала и id");
+        }
     }
 
     private void checkAvailabilityForBooking(Item item) {
@@ -175,6 +296,25 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
+    private void checkNotOwner(Item item, Long userId) {
+        if (Objects.equals(item.getOwner().getId(), userId)) {
+            throw new NotFoundException("Владелец вещи не может её сам забронировать");
+        }
+    }
+
+    private void checkFree(Long itemId, LocalDateTime start, LocalDateTime end) {
+        if (!bookingIntervalIndex.isFree(itemId, start, end)) {
+            throw new NotAvailableException("Вещь с id " + itemId + " уже забронирована на это время");
+        }
+    }
+
+    private void checkComplete(BookingRequestDto bookingRequestDto) {
+        if (bookingRequestDto == null || bookingRequestDto.getItemId() == null
+                || bookingRequestDto.getStart() == null || bookingRequestDto.getEnd() == null) {
+            throw new ValidationException("В бронировании должны быть указаны вещь, дата начала и дата окончания");
+        }
+    }
+
     private void checkTimeConflict(LocalDateTime start, LocalDateTime end) {
         if (start.isAfter(end) || start.equals(end)) {
             throw new TimeConflictException("Дата окончания бронирования не может быть раньше даты начала бронирования или равна ей");
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.Getter;
+import ru.practicum.shareit.booking.enums.Phase;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.util.List;
+
+/**
+ * Параметр state, развёрнутый в наборы фаз и статусов, чтобы все состояния обслуживались одним запросом
+ * с курсором. Фаза материализована в bookings.phase (BookingPhaseScheduler), поэтому фильтр - равенство
+ * по индексированной колонке, а не диапазоны по датам относительно now().
+ */
+@Getter
+class BookingStateFilter {
+    private List<Phase> phases = List.of(Phase.values());
+    private List<Status> statuses = List.of(Status.values());
+
+    static BookingStateFilter of(String state) {
+        BookingStateFilter filter = new BookingStateFilter();
+        switch (state) {
+            case "ALL":
+                break;
+            case "CURRENT":
+                filter.phases = List.of(Phase.CURRENT);
+                break;
+            case "PAST":
+                filter.phases = List.of(Phase.PAST);
+                break;
+            case "FUTURE":
+                filter.phases = List.of(Phase.FUTURE);
+                break;
+            case "WAITING":
+                filter.phases = List.of(Phase.FUTURE);
+                filter.statuses = List.of(Status.WAITING);
+                break;
+            case "REJECTED":
+                filter.statuses = List.of(Status.REJECTED);
+                break;
+            default:
+                throw new ValidationException("Unknown state: " + state);
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Полосатые блокировки по id вещи: изменения бронирований одной вещи в пределах экземпляра сервера
+ * выполняются по очереди, а не сталкиваются в БД конфликтом версий. Вещи с разными id почти всегда
+ * попадают в разные полосы, число блокировок не зависит от числа вещей.
+ * Отключается shareit.booking.item-locks.enabled=false, тогда параллельные изменения разбирает
+ * только оптимистическая блокировка (@Version).
+ */
+@Component
+public class ItemLocks {
+    private final ReentrantLock[] stripes;
+
+    public ItemLocks(@Value("${shareit.booking.item-locks.enabled:true}") boolean enabled,
+                     @Value("${shareit.booking.item-locks.stripes:64}") int stripes) {
+        if (enabled) {
+            //Число полос округляется до степени двойки, чтобы полоса выбиралась маской:
+            int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+            this.stripes = new ReentrantLock[size];
+            for (int i = 0; i < size; i++) {
+                this.stripes[i] = new ReentrantLock();
+            }
+        } else {
+            this.stripes = null;
+        }
+    }
+
+    public <T> T withLock(Long itemId, Supplier<T> action) {
+        if (stripes == null || itemId == null) {
+            return action.get();
+        }
+        ReentrantLock lock = stripes[stripe(itemId)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripe(Long itemId) {
+        int hash = Long.hashCode(itemId) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.cache;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.springframework.boot.convert.DurationStyle;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Кэш второго уровня Hibernate на Ehcache (JCache) с явно заданными регионами.
+ * Размер и время жизни региона можно переопределить свойствами
+ * spring.jpa.properties.shareit.cache.{регион}.max-entries и spring.jpa.properties.shareit.cache.{регион}.ttl.
+ * Каждая SessionFactory получает свой CacheManager: Hibernate закрывает его вместе с собой,
+ * и общий менеджер сломал бы остальные контексты (например, в тестах).
+ */
+public class HibernateCacheRegionFactory extends JCacheRegionFactory {
+    public static final String USERS = "users";
+    public static final String ITEMS = "items";
+    public static final String REQUESTS = "requests";
+    public static final String ITEMS_BY_OWNER = "items-by-owner";
+    //Регионы Hibernate по умолчанию:
+    private static final String QUERY_RESULTS = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+    private static final String PROPERTY_PREFIX = "shareit.cache.";
+
+    @Override
+    protected CacheManager resolveCacheManager(SessionFactoryOptions settings, Map properties) {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(
+                EhcacheCachingProvider.class.getName());
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+        configuration = region(configuration, properties, USERS, 10_000, Duration.ofMinutes(10));
+        configuration = region(configuration, properties, ITEMS, 10_000, Duration.ofMinutes(10));
+        configuration = region(configuration, properties, REQUESTS, 10_000, Duration.ofMinutes(10));
+        configuration = region(configuration, properties, ITEMS_BY_OWNER, 1_000, Duration.ofMinutes(1));
+        configuration = region(configuration, properties, QUERY_RESULTS, 1_000, Duration.ofMinutes(1));
+        //Метки изменения таблиц не должны вытесняться раньше результатов запросов, иначе те устареют незаметно:
+        configuration = configuration.withCache(UPDATE_TIMESTAMPS, CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(1_000))
+                .withExpiry(ExpiryPolicyBuilder.noExpiration())
+                .build());
+        return provider.getCacheManager(URI.create("urn:shareit:hibernate:" + UUID.randomUUID()),
+                configuration.build());
+    }
+
+    private ConfigurationBuilder region(ConfigurationBuilder configuration, Map<?, ?> properties, String region,
+                                        long defaultMaxEntries, Duration defaultTtl) {
+        Object maxEntries = properties.get(PROPERTY_PREFIX + region + ".max-entries");
+        Object ttl = properties.get(PROPERTY_PREFIX + region + ".ttl");
+        ExpiryPolicy<Object, Object> expiry = ExpiryPolicyBuilder.timeToLiveExpiration(ttl == null
+                ? defaultTtl
+                : DurationStyle.detectAndParse(ttl.toString()));
+        return configuration.withCache(region, CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries == null
+                        ? defaultMaxEntries
+                        : Long.parseLong(maxEntries.toString())))
+                .withExpiry(expiry)
+                .build());
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Включается, если задан shareit.datasource.replica.urls (через запятую). Реплики используют драйвер,
+ * имя пользователя и пароль основной БД; Flyway и пишущие транзакции всегда работают с основной.
+ * Свой dataSource отключает автоконфигурацию Hikari, поэтому spring.datasource.hikari.* привязываются здесь
+ * к каждому пулу - и основной БД, и реплик.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.datasource.replica.urls")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 Environment environment,
+                                 @Value("${shareit.datasource.replica.urls}") List<String> replicaUrls,
+                                 @Value("${shareit.datasource.replica.retry-interval:30s}") Duration retryInterval) {
+        Binder binder = Binder.get(environment);
+        DataSource primary = hikariDataSource(properties, binder, properties.determineUrl(), "primary");
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (!url.trim().isEmpty()) {
+                replicas.add(hikariDataSource(properties, binder, url.trim(), "replica-" + (replicas.size() + 1)));
+            }
+        }
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primary, replicas, retryInterval));
+    }
+
+    //Имя пула задаётся после привязки: с одним spring.datasource.hikari.pool-name на всех пулы не различить в метриках
+    static HikariDataSource hikariDataSource(DataSourceProperties properties, Binder binder, String url,
+                                             String poolName) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(poolName);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaLagTracker replicaLagTracker) {
+        return new ReadYourWritesFilter(replicaLagTracker);
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Отправляет соединения транзакций только для чтения на реплики (по кругу), всё остальное - на основную БД.
+ * Реплика, на которой не удалось получить соединение, считается недоступной на retryInterval, после чего
+ * проверяется заново (Connection.isValid); если доступных реплик нет, чтение идёт на основную БД.
+ * Решение принимается при получении соединения, поэтому источник нужно оборачивать в LazyConnectionDataSourceProxy:
+ * иначе соединение берётся до того, как транзакция помечена как readOnly.
+ */
+@Slf4j
+public class ReadReplicaRoutingDataSource extends AbstractDataSource {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long retryIntervalMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration retryInterval) {
+        this.primary = primary;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + i, replicas.get(i)));
+        }
+        this.retryIntervalMillis = retryInterval.toMillis();
+    }
+
+    /**
+     * Направляет все соединения текущего потока на основную БД, например, чтобы пользователь
+     * сразу увидел свои изменения, ещё не дошедшие до реплик.
+     */
+    public static void forcePrimary(boolean forced) {
+        if (forced) {
+            PRIMARY_FORCED.set(true);
+        } else {
+            PRIMARY_FORCED.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (isReadOnlyRoute()) {
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                Connection connection = replica.tryGetConnection();
+                if (connection != null) {
+                    return connection;
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    public int availableReplicas() {
+        long now = System.currentTimeMillis();
+        return (int) replicas.stream().filter(replica -> replica.downUntil <= now).count();
+    }
+
+    private boolean isReadOnlyRoute() {
+        return !replicas.isEmpty()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && PRIMARY_FORCED.get() == null;
+    }
+
+    private class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile long downUntil;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        Connection tryGetConnection() {
+            long now = System.currentTimeMillis();
+            long until = downUntil;
+            if (until > now) {
+                return null;
+            }
+            Connection connection = null;
+            try {
+                connection = dataSource.getConnection();
+                if (until != 0 && !connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    throw new SQLException("Соединение не прошло проверку");
+                }
+                if (until != 0) {
+                    downUntil = 0;
+                    log.info("Реплика " + name + " снова доступна");
+                }
+                return connection;
+            } catch (SQLException e) {
+                close(connection);
+                downUntil = now + retryIntervalMillis;
+                log.warn("Реплика " + name + " недоступна, чтение переключено на основную БД: " + e.getMessage());
+                return null;
+            }
+        }
+
+        private void close(Connection connection) {
+            if (connection != null) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Не удалось закрыть соединение с репликой " + name, e);
+                }
+            }
+        }
+    }
+}
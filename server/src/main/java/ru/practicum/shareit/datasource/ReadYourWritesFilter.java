@@ -0,0 +1,47 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Пока изменения пользователя могут отставать на репликах, все его запросы читают с основной БД.
+ * Регистрируется только вместе с репликами, см. ReadReplicaDataSourceConfig.
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+
+    private final ReplicaLagTracker replicaLagTracker;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!isPinned(request.getHeader(USER_ID_HEADER))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ReadReplicaRoutingDataSource.forcePrimary(true);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadReplicaRoutingDataSource.forcePrimary(false);
+        }
+    }
+
+    private boolean isPinned(String userId) {
+        if (userId == null) {
+            return false;
+        }
+        try {
+            return replicaLagTracker.isPinned(Long.parseLong(userId));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Запоминает пользователей, чьи изменения могли ещё не дойти до реплик. В течение
+ * shareit.datasource.replica.max-lag после коммита их запросы читают с основной БД (см. ReadYourWritesFilter).
+ */
+@Component
+public class ReplicaLagTracker {
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final long maxLagMillis;
+    private final Map<Long, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    public ReplicaLagTracker(@Value("${shareit.datasource.replica.max-lag:5s}") Duration maxLag) {
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    public void pin(Long... userIds) {
+        afterCommit(() -> {
+            long now = System.currentTimeMillis();
+            if (pinnedUntil.size() > CLEANUP_THRESHOLD) {
+                pinnedUntil.values().removeIf(until -> until <= now);
+            }
+            for (Long userId : userIds) {
+                pinnedUntil.put(userId, now + maxLagMillis);
+            }
+        });
+    }
+
+    public boolean isPinned(Long userId) {
+        Long until = pinnedUntil.get(userId);
+        if (until == null) {
+            return false;
+        }
+        if (until <= System.currentTimeMillis()) {
+            pinnedUntil.remove(userId, until);
+            return false;
+        }
+        return true;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
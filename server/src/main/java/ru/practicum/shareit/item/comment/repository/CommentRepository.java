@@ -1,10 +1,19 @@
 package ru.practicum.shareit.item.comment.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.comment.model.Comment;
 
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    @Query("SELECT c FROM Comment c " +
+            "JOIN FETCH c.author " +
+            "WHERE c.item.id = :itemId")
     List<Comment> findAllByItemId(Long itemId);
-}
\ No newline at end of file
+
+    @Query("SELECT c FROM Comment c " +
+            "JOIN FETCH c.author " +
+            "WHERE c.item.id IN :itemIds")
+    List<Comment> findAllByItemIdIn(List<Long> itemIds);
+}
@@ -2,13 +2,19 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDtoWithBooking;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.SearchCursor;
 
+import javax.servlet.http.HttpServletResponse;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -37,9 +43,18 @@ public class ItemController {
     @GetMapping
     public List<ItemResponseDtoWithBooking> findAll(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                     Integer from,
-                                                    Integer size) {
+                                                    Integer size,
+                                                    @RequestParam(required = false) String cursor,
+                                                    HttpServletResponse response) {
         log.info("Получение всех вещей пользователя");
-        return itemService.findAll(userId, from, size);
+        List<ItemResponseDtoWithBooking> items = cursor == null
+                ? itemService.findAll(userId, from, size)
+                : itemService.findAllAfter(userId, Cursor.decode(cursor), size);
+        if (items.size() == size) {
+            Long lastId = items.get(items.size() - 1).getId();
+            response.setHeader(Cursor.NEXT_CURSOR_HEADER, Cursor.of(lastId).encode());
+        }
+        return items;
     }
 
     @GetMapping("/{itemId}")
@@ -47,6 +62,14 @@ public class ItemController {
         return itemService.getItem(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable Long itemId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.debug("Получение занятости вещи");
+        return itemService.getAvailability(itemId, from, to);
+    }
+
     @DeleteMapping("/{itemId}")
     public void delete(@PathVariable Long itemId) {
         log.debug("Удаление вещи");
@@ -55,9 +78,18 @@ public class ItemController {
 
     @GetMapping("/search")
     public List<ItemDto> findItemByName(String text, @RequestParam Integer from,
-                                        @RequestParam Integer size) {
+                                        @RequestParam Integer size,
+                                        @RequestParam(required = false) String cursor,
+                                        HttpServletResponse response) {
         log.debug("Поиск вещи по её названию");
-        return itemService.findItemByName(text, from, size);
+        List<ItemDto> items = cursor == null
+                ? itemService.findItemByName(text, from, size)
+                : itemService.findItemByNameAfter(text, SearchCursor.decode(cursor), size);
+        if (items.size() == size) {
+            ItemDto last = items.get(items.size() - 1);
+            response.setHeader(Cursor.NEXT_CURSOR_HEADER, itemService.getSearchCursor(text, last).encode());
+        }
+        return items;
     }
 
     @PostMapping("/{itemId}/comment")
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemAvailabilityDto {
+    private Long itemId;
+    private Boolean available;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<AvailabilityIntervalDto> busy;
+    private List<AvailabilityIntervalDto> free;
+}
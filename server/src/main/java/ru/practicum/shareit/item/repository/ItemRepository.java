@@ -3,20 +3,67 @@ package ru.practicum.shareit.item.repository;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.cache.HibernateCacheRegionFactory;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.request.model.ItemRequest;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    //Список сбрасывается Hibernate при любом изменении таблицы items:
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = HibernateCacheRegionFactory.ITEMS_BY_OWNER)})
     List<Item> findAllByOwnerId(Long userId, PageRequest pageRequest);
 
+    //Условие по owner_id самой таблицы items: производный запрос соединял бы users и фильтровал по ним,
+    //мимо индекса (owner_id, id)
+    @Query("SELECT i FROM Item i WHERE i.owner.id = :userId AND i.id > :id ORDER BY i.id ASC")
+    List<Item> findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, PageRequest pageRequest);
+
     @Query(" SELECT i FROM Item i WHERE  (upper(i.name) LIKE upper(concat('%', ?1, '%')) " +
-            "OR upper(i.description) LIKE upper(concat('%', ?1, '%'))) AND i.available = true")
+            "OR upper(i.description) LIKE upper(concat('%', ?1, '%'))) AND i.available = true " +
+            "ORDER BY CASE WHEN upper(i.name) LIKE upper(concat('%', ?1, '%')) THEN 1 ELSE 0 END DESC, i.id DESC")
     List<Item> search(String text, PageRequest pageRequest);
 
+    //Страница после курсора: afterRank - значение CASE у последней вещи предыдущей страницы, afterId - её id:
+    @Query(" SELECT i FROM Item i WHERE  (upper(i.name) LIKE upper(concat('%', ?1, '%')) " +
+            "OR upper(i.description) LIKE upper(concat('%', ?1, '%'))) AND i.available = true " +
+            "AND (CASE WHEN upper(i.name) LIKE upper(concat('%', ?1, '%')) THEN 1 ELSE 0 END < ?2 " +
+            "OR (CASE WHEN upper(i.name) LIKE upper(concat('%', ?1, '%')) THEN 1 ELSE 0 END = ?2 AND i.id < ?3)) " +
+            "ORDER BY CASE WHEN upper(i.name) LIKE upper(concat('%', ?1, '%')) THEN 1 ELSE 0 END DESC, i.id DESC")
+    List<Item> searchAfter(String text, int afterRank, Long afterId, PageRequest pageRequest);
+
+    //Полнотекстовый поиск, только PostgreSQL (колонка search_vector):
+    @Query(value = "SELECT i.* FROM items i " +
+            "WHERE i.is_available = true AND i.search_vector @@ to_tsquery('simple', :query) " +
+            "ORDER BY ts_rank(i.search_vector, to_tsquery('simple', :query)) DESC, i.id DESC " +
+            "LIMIT :size OFFSET :from", nativeQuery = true)
+    List<Item> fullTextSearch(String query, int from, int size);
+
+    @Query(value = "SELECT i.* FROM items i " +
+            "WHERE i.is_available = true AND i.search_vector @@ to_tsquery('simple', :query) " +
+            "AND (ts_rank(i.search_vector, to_tsquery('simple', :query)), i.id) < (:afterRank, :afterId) " +
+            "ORDER BY ts_rank(i.search_vector, to_tsquery('simple', :query)) DESC, i.id DESC " +
+            "LIMIT :size", nativeQuery = true)
+    List<Item> fullTextSearchAfter(String query, double afterRank, Long afterId, int size);
+
+    @Query(value = "SELECT CAST(ts_rank(i.search_vector, to_tsquery('simple', :query)) AS DOUBLE PRECISION) " +
+            "FROM items i WHERE i.id = :itemId", nativeQuery = true)
+    Double fullTextRank(String query, Long itemId);
+
     @Query("SELECT i FROM Item i WHERE i.id = :itemId AND i.owner.id = :ownerId ")
     Item findItemsByIdAndOwnerId(Long itemId, Long ownerId);
 
-    List<Item> findAllByItemRequest(ItemRequest itemRequest);
+    //Вещи сразу для всех запросов страницы:
+    @Query("SELECT new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, " +
+            "i.itemRequest.id) " +
+            "FROM Item i " +
+            "WHERE i.itemRequest.id IN :requestIds " +
+            "ORDER BY i.id")
+    List<ItemDto> findItemDtosByRequestIdIn(List<Long> requestIds);
 }
\ No newline at end of file
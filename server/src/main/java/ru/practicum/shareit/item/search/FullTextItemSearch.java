@@ -0,0 +1,57 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.SearchCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Полнотекстовый поиск PostgreSQL по колонке items.search_vector (GIN-индекс, миграция db/vendor/postgresql).
+ * Каждое слово запроса ищется как префикс лексемы, релевантность - ts_rank.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "full-text")
+public class FullTextItemSearch implements ItemSearch {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String text, int from, int size) {
+        String query = toTsQuery(text);
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return itemRepository.fullTextSearch(query, from, size);
+    }
+
+    @Override
+    public List<Item> searchAfter(String text, SearchCursor after, int size) {
+        String query = toTsQuery(text);
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return itemRepository.fullTextSearchAfter(query, after.getRank(), after.getId(), size);
+    }
+
+    //Вещь только что попала в выдачу, поэтому ts_rank для неё есть; дальше он хранится в курсоре:
+    @Override
+    public SearchCursor cursorOf(String text, Item item) {
+        Double rank = itemRepository.fullTextRank(toTsQuery(text), item.getId());
+        return SearchCursor.of(rank != null ? rank : 0, item.getId());
+    }
+
+    /**
+     * Превращает пользовательский текст в безопасный tsquery: "Дрель акк" -> "дрель:* & акк:*".
+     */
+    public static String toTsQuery(String text) {
+        return SearchTokenizer.tokenize(text).stream()
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+}
@@ -0,0 +1,238 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.SearchCursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Поиск по инвертированному индексу в памяти процесса. Индекс строится при старте из ItemRepository
+ * и обновляется при создании, изменении и удалении вещей; в индекс попадают только доступные вещи.
+ * Порядок выдачи - как у остальных движков: сначала вещи, у которых все слова запроса найдены в названии,
+ * затем остальные, внутри каждой группы - по убыванию id. Из базы загружается только страница найденных вещей.
+ * Пока индекс не построен или если он превысил shareit.search.in-memory.max-size, поиск идёт через LIKE-запрос.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "in-memory")
+public class InMemoryItemSearch implements ItemSearch {
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final InvertedIndex index = new InvertedIndex();
+    //Слова только из названий, для ранжирования:
+    private final InvertedIndex names = new InvertedIndex();
+    private final long maxBytes;
+    private final Timer queryTimer;
+    private volatile boolean ready;
+    private volatile boolean overBudget;
+
+    public InMemoryItemSearch(ItemRepository itemRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${shareit.search.in-memory.max-size:256MB}") DataSize maxSize) {
+        this.itemRepository = itemRepository;
+        this.maxBytes = maxSize.toBytes();
+        this.queryTimer = Timer.builder("shareit.search.index.query")
+                .description("Время поиска по индексу в памяти")
+                .register(meterRegistry);
+        Gauge.builder("shareit.search.index.tokens", index, InvertedIndex::tokenCount).register(meterRegistry);
+        Gauge.builder("shareit.search.index.items", index, InvertedIndex::documentCount).register(meterRegistry);
+        Gauge.builder("shareit.search.index.postings", index, InvertedIndex::postingsCount).register(meterRegistry);
+        Gauge.builder("shareit.search.index.size", this, InMemoryItemSearch::estimatedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        index.clear();
+        names.clear();
+        int pageNumber = 0;
+        Page<Item> page;
+        do {
+            page = itemRepository.findAll(PageRequest.of(pageNumber++, REBUILD_BATCH_SIZE, Sort.by("id")));
+            page.forEach(this::index);
+            if (isOverBudget()) {
+                return;
+            }
+        } while (page.hasNext());
+        ready = true;
+        log.info("Индекс поиска построен: вещей = " + index.documentCount() + ", слов = " + index.tokenCount() +
+                ", размер ~ " + estimatedBytes() + " байт");
+    }
+
+    @Override
+    public List<Item> search(String text, int from, int size) {
+        if (!ready || overBudget) {
+            return itemRepository.search(text, PageRequest.of(from / size, size));
+        }
+        return queryTimer.record(() -> hydrate(rank(SearchTokenizer.tokenize(text)).ids, from, size));
+    }
+
+    @Override
+    public List<Item> searchAfter(String text, SearchCursor after, int size) {
+        if (!ready || overBudget) {
+            return itemRepository.searchAfter(text, (int) after.getRank(), after.getId(), PageRequest.of(0, size));
+        }
+        return queryTimer.record(() -> {
+            Ranking ranking = rank(SearchTokenizer.tokenize(text));
+            return hydrate(ranking.ids, ranking.positionAfter(after), size);
+        });
+    }
+
+    //Релевантность как у выдачи: 1 - все слова запроса найдены в названии, 0 - нет (при LIKE - как в LikeItemSearch)
+    @Override
+    public SearchCursor cursorOf(String text, Item item) {
+        if (!ready || overBudget) {
+            return SearchCursor.of(LikeItemSearch.nameRank(text, item), item.getId());
+        }
+        List<String> nameTokens = SearchTokenizer.tokenize(item.getName());
+        boolean inName = SearchTokenizer.tokenize(text).stream()
+                .allMatch(word -> nameTokens.stream().anyMatch(token -> token.startsWith(word)));
+        return SearchCursor.of(inName ? 1 : 0, item.getId());
+    }
+
+    @Override
+    public void onItemSaved(Item item) {
+        afterCommit(() -> {
+            if (!overBudget) {
+                index(item);
+                isOverBudget();
+            }
+        });
+    }
+
+    @Override
+    public void onItemDeleted(Long itemId) {
+        afterCommit(() -> {
+            index.remove(itemId);
+            names.remove(itemId);
+        });
+    }
+
+    private void index(Item item) {
+        if (Boolean.TRUE.equals(item.getAvailable())) {
+            List<String> nameTokens = SearchTokenizer.tokenize(item.getName());
+            List<String> tokens = new ArrayList<>(nameTokens);
+            tokens.addAll(SearchTokenizer.tokenize(item.getDescription()));
+            index.put(item.getId(), tokens.stream().distinct().collect(Collectors.toList()));
+            names.put(item.getId(), nameTokens);
+        } else {
+            index.remove(item.getId());
+            names.remove(item.getId());
+        }
+    }
+
+    private Ranking rank(List<String> words) {
+        long[] all = index.find(words);
+        //Индексы обновляются не атомарно вместе, поэтому совпадения по названию ограничиваются общими:
+        long[] inName = InvertedIndex.intersect(names.find(words), all);
+        long[] ids = new long[all.length];
+        int k = 0;
+        for (int i = inName.length - 1; i >= 0; i--) {
+            ids[k++] = inName[i];
+        }
+        for (int i = all.length - 1; i >= 0; i--) {
+            if (Arrays.binarySearch(inName, all[i]) < 0) {
+                ids[k++] = all[i];
+            }
+        }
+        return new Ranking(ids, inName.length);
+    }
+
+    /**
+     * Загружает из базы size вещей, идя по ids от позиции start. Вещь могла стать недоступной или быть удалена
+     * до обновления индекса; такие пропускаются и догружаются следующие, чтобы страница не была короче.
+     */
+    private List<Item> hydrate(long[] ids, int start, int size) {
+        List<Item> page = new ArrayList<>();
+        int position = Math.max(start, 0);
+        while (page.size() < size && position < ids.length) {
+            List<Long> chunk = new ArrayList<>();
+            for (; position < ids.length && chunk.size() < size - page.size(); position++) {
+                chunk.add(ids[position]);
+            }
+            Map<Long, Item> items = itemRepository.findAllById(chunk).stream()
+                    .collect(Collectors.toMap(Item::getId, Function.identity()));
+            chunk.stream()
+                    .map(items::get)
+                    .filter(item -> item != null && Boolean.TRUE.equals(item.getAvailable()))
+                    .forEach(page::add);
+        }
+        return page;
+    }
+
+    private long estimatedBytes() {
+        return index.estimatedBytes() + names.estimatedBytes();
+    }
+
+    private boolean isOverBudget() {
+        if (!overBudget && estimatedBytes() > maxBytes) {
+            overBudget = true;
+            index.clear();
+            names.clear();
+            log.warn("Индекс поиска превысил лимит " + maxBytes + " байт и отключён, поиск переключён на LIKE");
+        }
+        return overBudget;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Id найденных вещей в порядке выдачи: первые nameMatches - совпадения по названию.
+     */
+    private static final class Ranking {
+        private final long[] ids;
+        private final int nameMatches;
+
+        Ranking(long[] ids, int nameMatches) {
+            this.ids = ids;
+            this.nameMatches = nameMatches;
+        }
+
+        //Позиция первой вещи, идущей в выдаче после курсора. Группа берётся из курсора, поэтому позиция
+        //не зависит от того, осталась ли сама вещь курсора в индексе:
+        int positionAfter(SearchCursor after) {
+            boolean inName = after.getRank() > 0;
+            int from = inName ? 0 : nameMatches;
+            int to = inName ? nameMatches : ids.length;
+            int position = from;
+            while (position < to && ids[position] >= after.getId()) {
+                position++;
+            }
+            return position;
+        }
+    }
+}
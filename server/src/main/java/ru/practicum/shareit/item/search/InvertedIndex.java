@@ -0,0 +1,170 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Инвертированный индекс: слово -> отсортированный по возрастанию массив id вещей.
+ * Массивы не изменяются после публикации (copy-on-write), поэтому чтение идёт без блокировок,
+ * а запись сериализована на самом индексе.
+ */
+public class InvertedIndex {
+    static final long TOKEN_OVERHEAD_BYTES = 96;
+    static final long DOCUMENT_OVERHEAD_BYTES = 64;
+    private static final long[] EMPTY = new long[0];
+
+    private final NavigableMap<String, long[]> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, String[]> documents = new ConcurrentHashMap<>();
+    private volatile long postingsCount;
+    private volatile long estimatedBytes;
+
+    public synchronized void put(long id, Collection<String> tokens) {
+        remove(id);
+        String[] documentTokens = tokens.toArray(new String[0]);
+        for (String token : documentTokens) {
+            long[] ids = postings.get(token);
+            if (ids == null) {
+                estimatedBytes += TOKEN_OVERHEAD_BYTES + 2L * token.length();
+                ids = EMPTY;
+            }
+            postings.put(token, insert(ids, id));
+        }
+        documents.put(id, documentTokens);
+        postingsCount += documentTokens.length;
+        estimatedBytes += DOCUMENT_OVERHEAD_BYTES + 16L * documentTokens.length;
+    }
+
+    public synchronized void remove(long id) {
+        String[] documentTokens = documents.remove(id);
+        if (documentTokens == null) {
+            return;
+        }
+        for (String token : documentTokens) {
+            long[] ids = delete(postings.get(token), id);
+            if (ids.length == 0) {
+                postings.remove(token);
+                estimatedBytes -= TOKEN_OVERHEAD_BYTES + 2L * token.length();
+            } else {
+                postings.put(token, ids);
+            }
+        }
+        postingsCount -= documentTokens.length;
+        estimatedBytes -= DOCUMENT_OVERHEAD_BYTES + 16L * documentTokens.length;
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        documents.clear();
+        postingsCount = 0;
+        estimatedBytes = 0;
+    }
+
+    /**
+     * Id документов, в которых каждое слово запроса является префиксом хотя бы одного слова документа.
+     * Результат отсортирован по возрастанию.
+     */
+    public long[] find(List<String> words) {
+        long[] result = null;
+        for (String word : words) {
+            long[] matches = EMPTY;
+            for (long[] ids : postings.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+                matches = union(matches, ids);
+            }
+            result = result == null ? matches : intersect(result, matches);
+            if (result.length == 0) {
+                return EMPTY;
+            }
+        }
+        return result == null ? EMPTY : result;
+    }
+
+    public int tokenCount() {
+        return postings.size();
+    }
+
+    public int documentCount() {
+        return documents.size();
+    }
+
+    public long postingsCount() {
+        return postingsCount;
+    }
+
+    public long estimatedBytes() {
+        return estimatedBytes + 8 * postingsCount;
+    }
+
+    static long[] insert(long[] ids, long id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return ids;
+        }
+        position = -position - 1;
+        long[] result = new long[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        result[position] = id;
+        System.arraycopy(ids, position, result, position + 1, ids.length - position);
+        return result;
+    }
+
+    static long[] delete(long[] ids, long id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return ids;
+        }
+        long[] result = new long[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        System.arraycopy(ids, position + 1, result, position, ids.length - position - 1);
+        return result;
+    }
+
+    static long[] union(long[] left, long[] right) {
+        if (left.length == 0) {
+            return right;
+        }
+        long[] result = new long[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                result[k++] = left[i++];
+            } else if (left[i] > right[j]) {
+                result[k++] = right[j++];
+            } else {
+                result[k++] = left[i++];
+                j++;
+            }
+        }
+        while (i < left.length) {
+            result[k++] = left[i++];
+        }
+        while (j < right.length) {
+            result[k++] = right[j++];
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    static long[] intersect(long[] left, long[] right) {
+        long[] result = new long[Math.min(left.length, right.length)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[k++] = left[i++];
+                j++;
+            }
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+}
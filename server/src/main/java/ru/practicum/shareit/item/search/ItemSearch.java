@@ -0,0 +1,34 @@
+package ru.practicum.shareit.item.search;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.SearchCursor;
+
+import java.util.List;
+
+/**
+ * Поиск доступных для бронирования вещей по тексту в названии или описании.
+ * Результаты упорядочены по релевантности, при равной релевантности - по убыванию id.
+ */
+public interface ItemSearch {
+
+    List<Item> search(String text, int from, int size);
+
+    /**
+     * Keyset-пагинация: страница, следующая за позицией {@code after} (релевантность и id) из предыдущей выдачи.
+     */
+    List<Item> searchAfter(String text, SearchCursor after, int size);
+
+    /**
+     * Позиция вещи из выдачи по тексту text - курсор для следующей страницы.
+     */
+    SearchCursor cursorOf(String text, Item item);
+
+    /**
+     * Вещь создана или изменена. Движки с собственным индексом обновляют его после фиксации транзакции.
+     */
+    default void onItemSaved(Item item) {
+    }
+
+    default void onItemDeleted(Long itemId) {
+    }
+}
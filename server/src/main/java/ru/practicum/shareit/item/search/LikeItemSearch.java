@@ -0,0 +1,42 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.SearchCursor;
+
+import java.util.List;
+
+/**
+ * Поиск подстрокой через LIKE. Работает на любой БД (в том числе H2 в профилях ci и test),
+ * но не использует индексы. Совпадение в названии релевантнее совпадения только в описании.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "like", matchIfMissing = true)
+public class LikeItemSearch implements ItemSearch {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String text, int from, int size) {
+        return itemRepository.search(text, PageRequest.of(from / size, size));
+    }
+
+    @Override
+    public List<Item> searchAfter(String text, SearchCursor after, int size) {
+        return itemRepository.searchAfter(text, (int) after.getRank(), after.getId(), PageRequest.of(0, size));
+    }
+
+    @Override
+    public SearchCursor cursorOf(String text, Item item) {
+        return SearchCursor.of(nameRank(text, item), item.getId());
+    }
+
+    //Релевантность как в ItemRepository.search: 1 - текст есть в названии, 0 - только в описании
+    static int nameRank(String text, Item item) {
+        return item.getName().toUpperCase().contains(text.toUpperCase()) ? 1 : 0;
+    }
+}
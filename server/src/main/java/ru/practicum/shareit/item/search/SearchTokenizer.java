@@ -0,0 +1,20 @@
+package ru.practicum.shareit.item.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Разбиение текста на слова для поисковых движков: нижний регистр, разделители - всё, кроме букв и цифр.
+ */
+public class SearchTokenizer {
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
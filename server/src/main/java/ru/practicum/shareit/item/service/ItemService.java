@@ -1,9 +1,13 @@
 package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDtoWithBooking;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.SearchCursor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -14,11 +18,19 @@ public interface ItemService {
 
     List<ItemResponseDtoWithBooking> findAll(Long userId, Integer from, Integer size);
 
+    List<ItemResponseDtoWithBooking> findAllAfter(Long userId, Cursor cursor, Integer size);
+
     ItemResponseDtoWithBooking getItem(Long userId, Long itemId);
 
     void delete(Long itemId);
 
+    ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
+
     List<ItemDto> findItemByName(String text, Integer from, Integer size);
 
+    List<ItemDto> findItemByNameAfter(String text, SearchCursor after, Integer size);
+
+    SearchCursor getSearchCursor(String text, ItemDto item);
+
     CommentDto createComment(Long userId, Long itemId, CommentDto commentDto);
 }
\ No newline at end of file
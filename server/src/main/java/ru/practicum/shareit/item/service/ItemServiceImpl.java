@@ -5,32 +5,43 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.ShortBookingDto;
+import ru.practicum.shareit.booking.dto.ShortBookingDtoWithItemId;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
 import ru.practicum.shareit.exceptions.NotAvailableException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.OperationAccessException;
+import ru.practicum.shareit.exceptions.ValidationException;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
 import ru.practicum.shareit.item.comment.mapper.CommentMapper;
 import ru.practicum.shareit.item.comment.model.Comment;
 import ru.practicum.shareit.item.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDtoWithBooking;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearch;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.SearchCursor;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceChecker;
 
-import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -43,9 +54,12 @@ import static ru.practicum.shareit.item.mapper.ItemMapper.*;
 public class ItemServiceImpl implements ItemService {
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserExistenceChecker userExistenceChecker;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearch itemSearch;
+    private final BookingIntervalIndex bookingIntervalIndex;
 
     @Override
     public ItemDto create(Long userId, ItemDto itemDto) {
@@ -58,6 +72,7 @@ public class ItemServiceImpl implements ItemService {
         }
         Item item = toItem(itemDto, user, itemRequest);
         Item newItem = itemRepository.save(item);
+        itemSearch.onItemSaved(newItem);
         log.info("Создана вещь: " + item);
         return toItemDto(newItem);
     }
@@ -81,27 +96,67 @@ public class ItemServiceImpl implements ItemService {
             updItem.setAvailable(itemDto.getAvailable());
         }
         Item updItem1 = itemRepository.save(updItem);
+        itemSearch.onItemSaved(updItem1);
         return toItemDto(updItem1);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemResponseDtoWithBooking> findAll(Long userId, Integer from, Integer size) {
-        User user = userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Пользователь с id" + userId + "не найден в базе данных"));
+        if (!userExistenceChecker.exists(userId)) {
+            throw new NotFoundException("Пользователь с id" + userId + "не найден в базе данных");
+        }
         Sort sort = Sort.by(Sort.Direction.ASC, "id");
         PageRequest pageRequest = PageRequest.of(from / size, size, sort);
         List<Item> items = itemRepository.findAllByOwnerId(userId, pageRequest);
+        return toItemResponseDtoWithBookingList(items);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemResponseDtoWithBooking> findAllAfter(Long userId, Cursor cursor, Integer size) {
+        if (!userExistenceChecker.exists(userId)) {
+            throw new NotFoundException("Пользователь с id" + userId + "не найден в базе данных");
+        }
+        if (cursor.getId() == null) {
+            throw new ValidationException("Курсор вещей должен содержать id");
+        }
+        List<Item> items = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(userId, cursor.getId(),
+                PageRequest.of(0, size));
+        return toItemResponseDtoWithBookingList(items);
+    }
+
+    private List<ItemResponseDtoWithBooking> toItemResponseDtoWithBookingList(List<Item> items) {
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        Map<Long, List<CommentDto>> comments = CommentMapper.toCommentDtoList(commentRepository.findAllByItemIdIn(itemIds))
+                .stream()
+                .collect(Collectors.groupingBy(CommentDto::getItemId));
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ShortBookingDto> lastBookings = new HashMap<>();
+        Map<Long, ShortBookingDto> nextBookings = new HashMap<>();
+        for (ShortBookingDtoWithItemId booking :
+                bookingRepository.findLastAndNextBookingsForItems(itemIds, Status.REJECTED, now)) {
+            if (booking.getStart().isBefore(now)) {
+                lastBookings.putIfAbsent(booking.getItemId(), BookingMapper.toShortBookingDto(booking));
+            } else {
+                nextBookings.putIfAbsent(booking.getItemId(), BookingMapper.toShortBookingDto(booking));
+            }
+        }
         List<ItemResponseDtoWithBooking> itemResponseDtoWithBookingList = new ArrayList<>();
         for (Item item : items) {
-            List<CommentDto> comments = CommentMapper.toCommentDtoList(commentRepository.findAllByItemId(item.getId()));
-            itemResponseDtoWithBookingList.add(toItemResponseDtoWithBooking(item, null, null, comments));
+            itemResponseDtoWithBookingList.add(toItemResponseDtoWithBooking(item,
+                    lastBookings.get(item.getId()),
+                    nextBookings.get(item.getId()),
+                    comments.getOrDefault(item.getId(), new ArrayList<>())));
         }
-        return itemResponseDtoWithBookingList.stream()
-                .peek(this::setBookings)
-                .collect(Collectors.toList());
+        return itemResponseDtoWithBookingList;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemResponseDtoWithBooking getItem(Long userId, Long itemId) {
         ItemResponseDtoWithBooking itemResponseDtoWithBooking;
         Item item = itemRepository.findById(itemId)
@@ -118,18 +173,71 @@ public class ItemServiceImpl implements ItemService {
     @Override
     public void delete(Long itemId) {
         itemRepository.deleteById(itemId);
+        itemSearch.onItemDeleted(itemId);
+        bookingIntervalIndex.evict(itemId);
     }
 
+    /**
+     * Занятость считается по индексу подтверждённых бронирований (BookingIntervalIndex), без запроса к bookings
+     * для вещей, уже загруженных в индекс. Прошедшее время не показывается: период начинается не раньше текущего момента.
+     */
     @Override
+    @Transactional(readOnly = true)
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Начало периода должно быть раньше его окончания");
+        }
+        Item item = itemRepository.findById(itemId).orElseThrow(() ->
+                new NotFoundException("Вещь с id " + itemId + " не найдена в базе данных"));
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from.isBefore(now) ? now : from;
+        List<AvailabilityIntervalDto> busy = new ArrayList<>();
+        List<AvailabilityIntervalDto> free = new ArrayList<>();
+        if (start.isBefore(to)) {
+            busy = bookingIntervalIndex.findBusy(itemId, start, to);
+            //Недоступную вещь забронировать нельзя, свободных интервалов у неё нет:
+            if (item.getAvailable()) {
+                LocalDateTime freeFrom = start;
+                for (AvailabilityIntervalDto interval : busy) {
+                    if (interval.getStart().isAfter(freeFrom)) {
+                        free.add(new AvailabilityIntervalDto(freeFrom, interval.getStart()));
+                    }
+                    freeFrom = interval.getEnd();
+                }
+                if (freeFrom.isBefore(to)) {
+                    free.add(new AvailabilityIntervalDto(freeFrom, to));
+                }
+            }
+        }
+        return new ItemAvailabilityDto(itemId, item.getAvailable(), start, to, busy, free);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<ItemDto> findItemByName(String text, Integer from, Integer size) {
-        PageRequest pageRequest = PageRequest.of(from / size, size);
         if (text != null && !text.isBlank()) {
-            List<Item> allItems = itemRepository.search(text, pageRequest);
+            List<Item> allItems = itemSearch.search(text, from, size);
             return allItems.stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
         }
         return new ArrayList<>();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemDto> findItemByNameAfter(String text, SearchCursor after, Integer size) {
+        if (text != null && !text.isBlank()) {
+            List<Item> allItems = itemSearch.searchAfter(text, after, size);
+            return allItems.stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SearchCursor getSearchCursor(String text, ItemDto item) {
+        return itemSearch.cursorOf(text, ItemMapper.toItem(item, null, null));
+    }
+
     @Override
     public CommentDto createComment(Long userId, Long itemId, CommentDto commentDto) {
         LocalDateTime time = LocalDateTime.now();
@@ -151,22 +259,15 @@ public class ItemServiceImpl implements ItemService {
 
     private ItemResponseDtoWithBooking setBookings(ItemResponseDtoWithBooking itemResponseDtoWithBooking) {
         LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = bookingRepository.findAllBookingsItem(itemResponseDtoWithBooking.getId());
-        Booking lastBooking = bookings.stream()
-                .filter(obj -> !(obj.getStatus().equals(Status.REJECTED)))
-                .filter(obj -> obj.getStart().isBefore(now))
-                .min((obj1, obj2) -> obj2.getStart().compareTo(obj1.getStart())).orElse(null);
-        Booking nextBooking = bookings.stream()
-                .filter(obj -> !(obj.getStatus().equals(Status.REJECTED)))
-                .filter(obj -> obj.getStart().isAfter(now))
-                .min(Comparator.comparing(Booking::getStart)).orElse(null);
-        if (lastBooking != null) {
-            itemResponseDtoWithBooking.setLastBooking(BookingMapper.toShortBookingDto(lastBooking));
-        }
-        if (nextBooking != null) {
-            itemResponseDtoWithBooking.setNextBooking(BookingMapper.toShortBookingDto(nextBooking));
-        }
+        PageRequest firstOnly = PageRequest.of(0, 1);
+        Long itemId = itemResponseDtoWithBooking.getId();
+        bookingRepository.findLastBooking(itemId, Status.REJECTED, now, firstOnly).stream()
+                .findFirst()
+                .ifPresent(itemResponseDtoWithBooking::setLastBooking);
+        bookingRepository.findNextBooking(itemId, Status.REJECTED, now, firstOnly).stream()
+                .findFirst()
+                .ifPresent(itemResponseDtoWithBooking::setNextBooking);
         log.info(String.valueOf(itemResponseDtoWithBooking));
         return itemResponseDtoWithBooking;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция последнего элемента страницы для постраничного вывода по ключу (keyset).
+ * Клиенту передаётся непрозрачной строкой: base64url от "время|id" или "|id", если сортировка только по id.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class Cursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    //Границы для первой страницы и неограниченных условий в запросах по курсору:
+    public static final LocalDateTime MIN_TIME = LocalDateTime.of(1900, 1, 1, 0, 0);
+    public static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime time;
+    private final Long id;
+
+    private Cursor(LocalDateTime time, Long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    public static Cursor of(LocalDateTime time, Long id) {
+        return new Cursor(time, id);
+    }
+
+    public static Cursor of(Long id) {
+        return new Cursor(null, id);
+    }
+
+    public String encode() {
+        String raw = (time == null ? "" : time.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new ValidationException("Некорректный курсор: " + token);
+            }
+            LocalDateTime time = separator == 0 ? null : LocalDateTime.parse(raw.substring(0, separator));
+            return new Cursor(time, Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Некорректный курсор: " + token);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Позиция последней вещи страницы поиска: релевантность и id. Релевантность хранится в самом курсоре,
+ * а не пересчитывается по id, поэтому следующая страница не зависит от того, что стало с этой вещью потом
+ * (удалена, изменена, снята с аренды). Клиенту передаётся непрозрачной строкой: base64url от "релевантность|id".
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class SearchCursor {
+    private static final String SEPARATOR = "|";
+
+    private final double rank;
+    private final Long id;
+
+    private SearchCursor(double rank, Long id) {
+        this.rank = rank;
+        this.id = id;
+    }
+
+    public static SearchCursor of(double rank, Long id) {
+        return new SearchCursor(rank, id);
+    }
+
+    public String encode() {
+        String raw = rank + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new ValidationException("Некорректный курсор: " + token);
+            }
+            return new SearchCursor(Double.parseDouble(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор: " + token);
+        }
+    }
+}
@@ -4,10 +4,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoWithItems;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 /**
@@ -37,9 +39,18 @@ public class ItemRequestController {
     @GetMapping("/all")
     public List<ItemRequestDtoWithItems> findAll(@RequestHeader("X-Sharer-User-Id") Long userId,
                                   @RequestParam Integer from,
-                                  @RequestParam Integer size) {
+                                  @RequestParam Integer size,
+                                  @RequestParam(required = false) String cursor,
+                                  HttpServletResponse response) {
         log.info("Получение списка запросов, созданных другими пользователями");
-        return itemRequestService.findAll(userId, from, size);
+        List<ItemRequestDtoWithItems> itemRequests = cursor == null
+                ? itemRequestService.findAll(userId, from, size)
+                : itemRequestService.findAllAfter(userId, Cursor.decode(cursor), size);
+        if (itemRequests.size() == size) {
+            ItemRequestDtoWithItems last = itemRequests.get(itemRequests.size() - 1);
+            response.setHeader(Cursor.NEXT_CURSOR_HEADER, Cursor.of(last.getCreated(), last.getId()).encode());
+        }
+        return itemRequests;
 
     }
 
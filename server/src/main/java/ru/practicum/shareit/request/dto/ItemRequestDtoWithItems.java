@@ -7,6 +7,7 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -18,4 +19,10 @@ public class ItemRequestDtoWithItems {
     private UserDto requester;
     private LocalDateTime created;
     private List<ItemDto> items;
+
+    //Для запросов с проекцией в DTO (SELECT new ...), вещи добавляются отдельно:
+    public ItemRequestDtoWithItems(Long id, String description, Long requesterId, String requesterName,
+                                   String requesterEmail, LocalDateTime created) {
+        this(id, description, new UserDto(requesterId, requesterName, requesterEmail), created, new ArrayList<>());
+    }
 }
\ No newline at end of file
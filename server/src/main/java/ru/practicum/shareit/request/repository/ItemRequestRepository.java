@@ -1,13 +1,47 @@
 package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.request.dto.ItemRequestDtoWithItems;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findAllByRequesterIdOrderByCreatedDesc(Long userId);
+    @Override
+    @EntityGraph(attributePaths = "requester")
+    Optional<ItemRequest> findById(Long id);
 
-    List<ItemRequest> findAllByRequesterIdIsNot(Long userId, PageRequest pageRequest);
-}
\ No newline at end of file
+    //Запросы сразу в DTO, без загрузки сущностей (список вещей заполняется отдельно):
+    @Query("SELECT new ru.practicum.shareit.request.dto.ItemRequestDtoWithItems(r.id, r.description, " +
+            "u.id, u.name, u.email, r.created) " +
+            "FROM ItemRequest r " +
+            "JOIN r.requester u " +
+            "WHERE r.id = :requestId")
+    Optional<ItemRequestDtoWithItems> findItemRequestDtoById(Long requestId);
+
+    @Query("SELECT new ru.practicum.shareit.request.dto.ItemRequestDtoWithItems(r.id, r.description, " +
+            "u.id, u.name, u.email, r.created) " +
+            "FROM ItemRequest r " +
+            "JOIN r.requester u " +
+            "WHERE r.requester.id = :userId " +
+            "ORDER BY r.created DESC")
+    List<ItemRequestDtoWithItems> findItemRequestDtosByRequesterId(Long userId);
+
+    //Страница задаётся курсором (created, id): для первой страницы передаются Cursor.MIN_TIME и Long.MIN_VALUE.
+    @Query("SELECT new ru.practicum.shareit.request.dto.ItemRequestDtoWithItems(r.id, r.description, " +
+            "u.id, u.name, u.email, r.created) " +
+            "FROM ItemRequest r " +
+            "JOIN r.requester u " +
+            "WHERE u.id <> :userId " +
+            "AND (r.created > :cursorCreated OR (r.created = :cursorCreated AND r.id > :cursorId)) " +
+            "ORDER BY r.created ASC, r.id ASC")
+    List<ItemRequestDtoWithItems> findItemRequestDtosByRequesterIdIsNot(Long userId,
+                                                                        LocalDateTime cursorCreated,
+                                                                        Long cursorId,
+                                                                        PageRequest pageRequest);
+}
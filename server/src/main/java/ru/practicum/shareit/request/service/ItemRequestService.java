@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request.service;
 
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.ItemRequestDtoWithItems;
 
 import java.util.List;
@@ -13,5 +14,7 @@ public interface ItemRequestService {
 
     List<ItemRequestDtoWithItems> findAll(Long userId, Integer from, Integer size);
 
+    List<ItemRequestDtoWithItems> findAllAfter(Long userId, Cursor cursor, Integer size);
+
     ItemRequestDtoWithItems getItemRequestById(Long userId, Long requestId);
 }
\ No newline at end of file
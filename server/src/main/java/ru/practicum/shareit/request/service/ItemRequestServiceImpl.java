@@ -3,22 +3,24 @@ package ru.practicum.shareit.request.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
-import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoWithItems;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceChecker;
 import ru.practicum.shareit.user.model.User;
 
-import javax.transaction.Transactional;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,6 +31,7 @@ import java.util.stream.Collectors;
 public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestRepository itemRequestRepository;
     private final UserRepository userRepository;
+    private final UserExistenceChecker userExistenceChecker;
     private final ItemRepository itemRepository;
 
     @Override
@@ -42,51 +45,68 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDtoWithItems> findAllByUserId(Long userId) {
-        User user = userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Пользователь с id " + userId + " не найден в базе данных"));
-        List<ItemRequest> itemRequests = itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(userId);
-        return convertToItemRequestDtoWithItemsList(itemRequests);
+        if (!userExistenceChecker.exists(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден в базе данных");
+        }
+        return setItems(itemRequestRepository.findItemRequestDtosByRequesterId(userId));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemRequestDtoWithItems> findAll(Long userId, Integer from, Integer size) {
-        User user = userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Пользователь с id " + userId + " не найден в базе данных"));
-        PageRequest pageRequest = PageRequest.of(from / size, size, Sort.by("created"));
-        List<ItemRequest> itemRequests = itemRequestRepository.findAllByRequesterIdIsNot(userId, pageRequest);
-        return convertToItemRequestDtoWithItemsList(itemRequests);
+        if (!userExistenceChecker.exists(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден в базе данных");
+        }
+        PageRequest pageRequest = PageRequest.of(from / size, size);
+        return setItems(itemRequestRepository.findItemRequestDtosByRequesterIdIsNot(userId, Cursor.MIN_TIME,
+                Long.MIN_VALUE, pageRequest));
     }
 
     @Override
-    public ItemRequestDtoWithItems getItemRequestById(Long userId, Long requestId) {
-        User user = userRepository.findById(userId).orElseThrow(() ->
-                new NotFoundException("Пользователь с id " + userId + " не найден в базе данных"));
-        ItemRequest itemRequest = itemRequestRepository.findById(requestId).orElseThrow(() ->
-                new NotFoundException("Запрос с id " + requestId + " не найден в базе данных"));
-        List<ItemDto> items = setItems(itemRequest);
-        ItemRequestDtoWithItems itemRequestDtoWithItems = ItemRequestMapper.toItemRequestDtoWithItems(itemRequest, new ArrayList<>());
-        if (!items.isEmpty()) {
-            itemRequestDtoWithItems.setItems(items);
+    @Transactional(readOnly = true)
+    public List<ItemRequestDtoWithItems> findAllAfter(Long userId, Cursor cursor, Integer size) {
+        if (!userExistenceChecker.exists(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден в базе данных");
         }
-        return itemRequestDtoWithItems;
+        if (cursor.getTime() == null || cursor.getId() == null) {
+            throw new ValidationException("Курсор запросов должен содержать дату создания и id");
+        }
+        return setItems(itemRequestRepository.findItemRequestDtosByRequesterIdIsNot(userId, cursor.getTime(),
+                cursor.getId(), PageRequest.of(0, size)));
     }
 
-    private List<ItemDto> setItems(ItemRequest itemRequest) {
-        List<ItemDto> items = itemRepository.findAllByItemRequest(itemRequest).stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
-        return items;
+    @Override
+    @Transactional(readOnly = true)
+    public ItemRequestDtoWithItems getItemRequestById(Long userId, Long requestId) {
+        if (!userExistenceChecker.exists(userId)) {
+            throw new NotFoundException("Пользователь с id " + userId + " не найден в базе данных");
+        }
+        ItemRequestDtoWithItems itemRequest = itemRequestRepository.findItemRequestDtoById(requestId).orElseThrow(() ->
+                new NotFoundException("Запрос с id " + requestId + " не найден в базе данных"));
+        return setItems(List.of(itemRequest)).get(0);
     }
 
-    private List<ItemRequestDtoWithItems> convertToItemRequestDtoWithItemsList(List<ItemRequest> itemRequests) {
-        List<ItemRequestDtoWithItems> itemRequestDtoWithItemsList = new ArrayList<>();
-        for (ItemRequest itemRequest : itemRequests) {
-            List<ItemDto> items = setItems(itemRequest);
-            ItemRequestDtoWithItems itemRequestDtoWithItems = ItemRequestMapper.toItemRequestDtoWithItems(itemRequest, new ArrayList<>());
-            if (!items.isEmpty()) {
-                itemRequestDtoWithItems.setItems(items);
+    /**
+     * Вещи всех запросов загружаются одним запросом и раскладываются по id запроса:
+     * id отсортированы в массиве long, поиск - бинарный, без упаковки ключей в Long.
+     */
+    private List<ItemRequestDtoWithItems> setItems(List<ItemRequestDtoWithItems> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return itemRequests;
+        }
+        ItemRequestDtoWithItems[] byId = itemRequests.toArray(new ItemRequestDtoWithItems[0]);
+        Arrays.sort(byId, Comparator.comparingLong(ItemRequestDtoWithItems::getId));
+        long[] ids = Arrays.stream(byId).mapToLong(ItemRequestDtoWithItems::getId).toArray();
+        List<ItemDto> items = itemRepository.findItemDtosByRequestIdIn(Arrays.stream(ids).boxed()
+                .collect(Collectors.toList()));
+        for (ItemDto item : items) {
+            int index = Arrays.binarySearch(ids, item.getRequestId());
+            if (index >= 0) {
+                byId[index].getItems().add(item);
             }
-            itemRequestDtoWithItemsList.add(itemRequestDtoWithItems);
         }
-        return itemRequestDtoWithItemsList;
+        return itemRequests;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.user.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Проверка существования пользователя без загрузки строки: existsById, а для уже встречавшихся id -
+ * без обращения к БД. Удалённый через этот экземпляр сервера пользователь забывается сразу,
+ * удалённый другим экземпляром - не позднее чем через shareit.users.known-ids.ttl.
+ */
+@Component
+public class UserExistenceChecker {
+    private final UserRepository userRepository;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<Long, Long> knownUntil = new ConcurrentHashMap<>();
+
+    public UserExistenceChecker(UserRepository userRepository,
+                                @Value("${shareit.users.known-ids.max-size:100000}") int maxSize,
+                                @Value("${shareit.users.known-ids.ttl:1m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public boolean exists(Long userId) {
+        long now = System.currentTimeMillis();
+        Long until = knownUntil.get(userId);
+        if (until != null && until > now) {
+            return true;
+        }
+        if (!userRepository.existsById(userId)) {
+            knownUntil.remove(userId);
+            return false;
+        }
+        if (knownUntil.size() >= maxSize) {
+            knownUntil.values().removeIf(expiresAt -> expiresAt <= now);
+            if (knownUntil.size() >= maxSize) {
+                knownUntil.clear();
+            }
+        }
+        knownUntil.put(userId, now + ttlMillis);
+        return true;
+    }
+
+    public void forget(Long userId) {
+        knownUntil.remove(userId);
+        //Пока удаление не закоммичено, параллельная проверка ещё может найти пользователя и запомнить его:
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    knownUntil.remove(userId);
+                }
+            });
+        }
+    }
+}
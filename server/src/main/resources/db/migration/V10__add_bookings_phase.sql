@@ -0,0 +1,17 @@
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS phase VARCHAR(10);
+
+UPDATE bookings
+SET phase = CASE
+                WHEN end_date <= CURRENT_TIMESTAMP THEN 'PAST'
+                WHEN start_date <= CURRENT_TIMESTAMP THEN 'CURRENT'
+                ELSE 'FUTURE'
+    END
+WHERE phase IS NULL;
+
+ALTER TABLE bookings ALTER COLUMN phase SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS bookings_booker_id_phase_start_date_idx ON bookings (booker_id, phase, start_date DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_phase_start_date_idx ON bookings (phase, start_date);
+
+CREATE INDEX IF NOT EXISTS bookings_phase_end_date_idx ON bookings (phase, end_date);
@@ -0,0 +1,5 @@
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS owner_id BIGINT;
+
+CREATE INDEX IF NOT EXISTS bookings_owner_id_start_date_idx ON bookings (owner_id, start_date DESC);
+
+CREATE INDEX IF NOT EXISTS bookings_owner_id_phase_start_date_idx ON bookings (owner_id, phase, start_date DESC);
@@ -1,5 +1,3 @@
-DROP TABLE IF EXISTS users, items, bookings, requests, comments;
-
 CREATE TABLE IF NOT EXISTS users
 (
     id    BIGINT       NOT NULL GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -0,0 +1,190 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.enums.Phase;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет по плану выполнения H2, что запросы репозиториев на заполненной базе обращаются к таблицам
+ * через индексы, а не полным сканированием. План строится для SQL, который Hibernate сгенерировал
+ * при вызове метода репозитория, с теми же параметрами (StatementRecorder).
+ */
+@DataJpaTest
+@Import(StatementRecorder.class)
+public class IndexUsageTest {
+    private static final int USERS = 50;
+    private static final int ITEMS_PER_USER = 4;
+    private static final int BOOKINGS_PER_ITEM = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private StatementRecorder statementRecorder;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @BeforeEach
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> requests = new ArrayList<>();
+        List<Object[]> items = new ArrayList<>();
+        List<Object[]> bookings = new ArrayList<>();
+        List<Object[]> comments = new ArrayList<>();
+        long itemId = 0;
+        long bookingId = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            users.add(new Object[]{userId, "user" + userId, "user" + userId + "@mail.ru"});
+            requests.add(new Object[]{userId, "request" + userId, userId, Timestamp.valueOf(now.minusHours(userId))});
+        }
+        for (long ownerId = 1; ownerId <= USERS; ownerId++) {
+            for (int i = 0; i < ITEMS_PER_USER; i++) {
+                itemId++;
+                items.add(new Object[]{itemId, "item" + itemId, "description" + itemId, true, ownerId,
+                        itemId % USERS + 1});
+                comments.add(new Object[]{itemId, "comment" + itemId, itemId, ownerId % USERS + 1,
+                        Timestamp.valueOf(now)});
+                for (int j = 0; j < BOOKINGS_PER_ITEM; j++) {
+                    bookingId++;
+                    long bookerId = (ownerId + j) % USERS + 1;
+                    bookings.add(new Object[]{bookingId, Timestamp.valueOf(now.plusDays(j - 2)),
+                            Timestamp.valueOf(now.plusDays(j - 1)), itemId, bookerId, j % 2 == 0 ? "APPROVED" : "WAITING",
+                            Phase.of(now.plusDays(j - 2), now.plusDays(j - 1), now).name(), ownerId});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO requests (id, description, requester_id, created) VALUES (?, ?, ?, ?)",
+                requests);
+        jdbcTemplate.batchUpdate("INSERT INTO items (id, name, description, is_available, owner_id, request_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", items);
+        jdbcTemplate.batchUpdate("INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status, phase, " +
+                "owner_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", bookings);
+        jdbcTemplate.batchUpdate("INSERT INTO comments (id, text, item_id, author_id, created) VALUES (?, ?, ?, ?, ?)",
+                comments);
+    }
+
+    @Test
+    public void bookingQueries_whenFilteredByBooker_thenUseIndex() {
+        //Оба индекса по бронирующему начинаются с booker_id, H2 выбирает между ними по фильтру фаз:
+        assertUsesIndex(planOf(() -> bookingRepository.findBookingResponseDtosByBookerId(7L, List.of(Phase.values()),
+                List.of(Status.values()), Cursor.MAX_TIME, Long.MAX_VALUE, PageRequest.of(0, 10))),
+                "BOOKINGS_BOOKER_ID_");
+        assertUsesIndex(planOf(() -> bookingRepository.findBookingResponseDtosByBookerId(7L, List.of(Phase.FUTURE),
+                List.of(Status.WAITING), Cursor.MAX_TIME, Long.MAX_VALUE, PageRequest.of(0, 10))),
+                "BOOKINGS_BOOKER_ID_");
+    }
+
+    @Test
+    public void bookingQueries_whenFilteredByOwner_thenUseIndex() {
+        assertUsesIndex(planOf(() -> bookingRepository.findBookingResponseDtosByOwnerId(3L, List.of(Phase.values()),
+                List.of(Status.values()), Cursor.MAX_TIME, Long.MAX_VALUE, PageRequest.of(0, 10))),
+                "BOOKINGS_OWNER_ID_");
+        assertUsesIndex(planOf(() -> bookingRepository.findBookingResponseDtosByOwnerId(3L, List.of(Phase.PAST),
+                List.of(Status.values()), Cursor.MAX_TIME, Long.MAX_VALUE, PageRequest.of(0, 10))),
+                "BOOKINGS_OWNER_ID_");
+    }
+
+    @Test
+    public void bookingQueries_whenFilteredByItem_thenUseIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        assertUsesIndex(planOf(() -> bookingRepository.findLastBooking(11L, Status.REJECTED, now,
+                PageRequest.of(0, 1))), "BOOKINGS_ITEM_ID_START_DATE_IDX");
+        assertUsesIndex(planOf(() -> bookingRepository.findNextBooking(11L, Status.REJECTED, now,
+                PageRequest.of(0, 1))), "BOOKINGS_ITEM_ID_START_DATE_IDX");
+        assertUsesIndex(planOf(() -> bookingRepository.findLastAndNextBookingsForItems(List.of(11L, 12L, 13L),
+                Status.REJECTED, now)), "BOOKINGS_ITEM_ID_START_DATE_IDX");
+        //Без условия на start_date H2 берёт любой из индексов на item_id (в PostgreSQL это
+        //bookings_item_id_start_date_idx, он же отдаёт строки уже по началу):
+        assertUsesIndexOn(planOf(() -> bookingRepository.findBookingIntervals(11L, Status.APPROVED, now)),
+                "ITEM_ID =");
+    }
+
+    @Test
+    public void bookingQueries_whenLookingForNextPhaseBoundary_thenUseIndex() {
+        assertUsesIndex(planOf(() -> bookingRepository.findFirstStartByPhase(Phase.FUTURE)),
+                "BOOKINGS_PHASE_START_DATE_IDX");
+        assertUsesIndex(planOf(() -> bookingRepository.findFirstEndByPhase(Phase.CURRENT)),
+                "BOOKINGS_PHASE_END_DATE_IDX");
+    }
+
+    @Test
+    public void itemQueries_whenFilteredByOwnerOrRequest_thenUseIndex() {
+        assertUsesIndex(planOf(() -> itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(3L, 0L,
+                PageRequest.of(0, 10))), "ITEMS_OWNER_ID_ID_IDX");
+        assertUsesIndex(planOf(() -> itemRepository.findItemDtosByRequestIdIn(List.of(5L, 6L))),
+                "ITEMS_REQUEST_ID_IDX");
+    }
+
+    @Test
+    public void requestQueries_whenFilteredByRequester_thenUseIndex() {
+        assertUsesIndexOn(planOf(() -> itemRequestRepository.findItemRequestDtosByRequesterId(5L)),
+                "REQUESTER_ID =");
+    }
+
+    @Test
+    public void commentQueries_whenFilteredByItem_thenUseIndex() {
+        assertUsesIndexOn(planOf(() -> commentRepository.findAllByItemId(11L)), "ITEM_ID =");
+        assertUsesIndexOn(planOf(() -> commentRepository.findAllByItemIdIn(List.of(11L, 12L, 13L))), "ITEM_ID IN");
+    }
+
+    //План последнего запроса, выполненного вызовом репозитория, с теми же параметрами:
+    private String planOf(Runnable repositoryCall) {
+        entityManager.clear();
+        statementRecorder.clear();
+        repositoryCall.run();
+        List<StatementRecorder.RecordedStatement> statements = statementRecorder.getStatements();
+        assertFalse(statements.isEmpty(), "Вызов репозитория не выполнил ни одного запроса");
+        StatementRecorder.RecordedStatement statement = statements.get(statements.size() - 1);
+        String plan = jdbcTemplate.query(connection -> statement.prepare(connection, "EXPLAIN "), resultSet -> {
+            StringBuilder rows = new StringBuilder();
+            while (resultSet.next()) {
+                rows.append(resultSet.getString(1));
+            }
+            return rows.toString();
+        });
+        return statement.getSql() + "\n" + plan;
+    }
+
+    private void assertUsesIndex(String plan, String index) {
+        assertTrue(plan.contains(index), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    //H2 сам создаёт индекс под каждый внешний ключ (CONSTRAINT_..._INDEX_...) и из равных по условию индексов
+    //выбирает его, а не индекс из V2. В PostgreSQL таких индексов нет, поэтому здесь проверяется только
+    //доступ к таблице по индексу с условием на колонку:
+    private void assertUsesIndexOn(String plan, String condition) {
+        assertTrue(Pattern.compile("/\\* PUBLIC\\.\\w+: [^*]*" + condition).matcher(plan).find(), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+}
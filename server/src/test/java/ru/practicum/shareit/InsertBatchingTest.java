@@ -0,0 +1,59 @@
+package ru.practicum.shareit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Id выдаются последовательностями заранее, поэтому вставки уходят пачками
+ * (hibernate.jdbc.batch_size), а не отдельным запросом на каждую строку.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class InsertBatchingTest {
+    private static final int USERS = 100;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    public void saveAll_whenManyEntities_thenInsertsBatched() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User(null, "User " + i, "user" + i + "@mail.ru"));
+        }
+        List<Item> items = new ArrayList<>();
+        for (User user : users) {
+            items.add(new Item(null, "Вещь " + user.getName(), "Описание", true, user, null));
+        }
+        statistics.clear();
+
+        userRepository.saveAll(users);
+        itemRepository.saveAll(items);
+        entityManager.flush();
+
+        assertEquals(USERS, users.stream().map(User::getId).collect(Collectors.toSet()).size());
+        assertEquals(2L * USERS, statistics.getEntityInsertCount());
+        //Несколько обращений к последовательностям и по две пачки вставок в каждую таблицу вместо 200 вставок:
+        assertTrue(statistics.getPrepareStatementCount() < 20, "SQL: " + statistics.getPrepareStatementCount());
+    }
+}
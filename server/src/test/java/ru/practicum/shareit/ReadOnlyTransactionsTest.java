@@ -0,0 +1,43 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Методы чтения сервисов (find*, get*) должны выполняться в транзакциях только для чтения,
+ * остальные публичные методы - в обычных транзакциях уровня класса.
+ */
+public class ReadOnlyTransactionsTest {
+    private static final List<Class<?>> SERVICES = List.of(UserServiceImpl.class, ItemServiceImpl.class,
+            BookingServiceImpl.class, ItemRequestServiceImpl.class);
+
+    @Test
+    public void services_whenQueryMethod_thenReadOnlyTransaction() {
+        for (Class<?> service : SERVICES) {
+            Transactional classLevel = service.getAnnotation(Transactional.class);
+            assertNotNull(classLevel, service.getSimpleName());
+            assertFalse(classLevel.readOnly(), service.getSimpleName());
+            for (Method method : service.getDeclaredMethods()) {
+                if (!Modifier.isPublic(method.getModifiers()) || method.isSynthetic()) {
+                    continue;
+                }
+                Transactional transactional = method.getAnnotation(Transactional.class);
+                boolean readOnly = transactional == null ? classLevel.readOnly() : transactional.readOnly();
+                boolean query = method.getName().startsWith("find") || method.getName().startsWith("get");
+                assertEquals(query, readOnly, service.getSimpleName() + "." + method.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Оборачивает DataSource и запоминает выполненные подготовленные запросы вместе со значениями параметров.
+ * Запрос можно выполнить повторно с теми же параметрами, например под EXPLAIN, чтобы проверить план
+ * именно того SQL, который сгенерировал Hibernate. Подключается к тесту через @Import.
+ */
+public class StatementRecorder implements BeanPostProcessor {
+    private final List<RecordedStatement> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) {
+            return bean;
+        }
+        Class<?> type = bean instanceof EmbeddedDatabase ? EmbeddedDatabase.class : DataSource.class;
+        return proxy(type, bean, (method, args, result) ->
+                result instanceof Connection ? recordingConnection((Connection) result) : result);
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    public List<RecordedStatement> getStatements() {
+        return new ArrayList<>(statements);
+    }
+
+    private Connection recordingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (method, args, result) -> {
+            if (result instanceof PreparedStatement && args != null && args[0] instanceof String) {
+                return recordingStatement((String) args[0], (PreparedStatement) result);
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement recordingStatement(String sql, PreparedStatement statement) {
+        List<ParameterCall> parameters = new ArrayList<>();
+        return proxy(PreparedStatement.class, statement, (method, args, result) -> {
+            //Установка параметра - set*(номер, значение, ...), в отличие от setFetchSize и подобных:
+            if (method.getName().startsWith("set") && args != null && args.length >= 2
+                    && method.getParameterTypes()[0] == int.class) {
+                parameters.add(new ParameterCall(method, args));
+            } else if (method.getName().equals("clearParameters")) {
+                parameters.clear();
+            } else if (method.getName().startsWith("execute")) {
+                statements.add(new RecordedStatement(sql, new ArrayList<>(parameters)));
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, ResultHandler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            try {
+                return handler.handle(method, args, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(), new Class<?>[]{type},
+                invocationHandler);
+    }
+
+    private interface ResultHandler {
+        Object handle(Method method, Object[] args, Object result);
+    }
+
+    private static final class ParameterCall {
+        private final Method method;
+        private final Object[] args;
+
+        ParameterCall(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+
+    public static final class RecordedStatement {
+        private final String sql;
+        private final List<ParameterCall> parameters;
+
+        RecordedStatement(String sql, List<ParameterCall> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        //Подготовить тот же запрос с префиксом (например, "EXPLAIN ") и теми же параметрами:
+        public PreparedStatement prepare(Connection connection, String prefix) throws SQLException {
+            PreparedStatement statement = connection.prepareStatement(prefix + sql);
+            for (ParameterCall parameter : parameters) {
+                try {
+                    parameter.method.invoke(statement, parameter.args);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new SQLException("Не удалось установить параметр запроса " + sql, e);
+                }
+            }
+            return statement;
+        }
+    }
+}
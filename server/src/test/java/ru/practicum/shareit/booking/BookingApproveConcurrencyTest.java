@@ -0,0 +1,146 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exceptions.NotAvailableException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Без @Transactional: каждое подтверждение идёт в своей транзакции из своего потока, как в работающем сервере.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingApproveConcurrencyTest {
+    private static final int THREADS = 16;
+    private final BookingService bookingService;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    ExecutorService executor;
+    Long ownerId;
+    Long itemId;
+    LocalDateTime start;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        ownerId = userService.create(new UserDto(null, "owner", "owner@mail.ru")).getId();
+        itemId = itemService.create(ownerId, new ItemDto(null, "Дрель", "Ударная", true, null)).getId();
+        start = LocalDateTime.now().plusDays(1).withNano(0);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        //Тест без @Transactional: данные коммитятся и сами не откатываются
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void approve_whenManyThreadsApproveOneItem_thenOverlappingBookingsApprovedOnce() throws Exception {
+        List<Long> overlapping = new ArrayList<>();
+        List<Long> disjoint = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Long bookerId = userService.create(new UserDto(null, "booker" + i, "booker" + i + "@mail.ru")).getId();
+            if (i % 2 == 0) {
+                overlapping.add(createBooking(bookerId, start.plusHours(i), start.plusDays(1).plusHours(i)));
+            } else {
+                disjoint.add(createBooking(bookerId, start.plusDays(10 + i), start.plusDays(10 + i).plusHours(12)));
+            }
+        }
+        List<Long> all = new ArrayList<>(overlapping);
+        all.addAll(disjoint);
+
+        AtomicInteger rejected = new AtomicInteger();
+        runConcurrently(all, bookingId -> {
+            try {
+                bookingService.approve(ownerId, bookingId, true);
+            } catch (NotAvailableException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        long approvedOverlapping = overlapping.stream()
+                .filter(bookingId -> bookingService.getBooking(ownerId, bookingId).getStatus() == Status.APPROVED)
+                .count();
+        assertEquals(1, approvedOverlapping);
+        assertEquals(overlapping.size() - 1, rejected.get());
+        disjoint.forEach(bookingId ->
+                assertEquals(Status.APPROVED, bookingService.getBooking(ownerId, bookingId).getStatus()));
+    }
+
+    @Test
+    public void approve_whenManyThreadsDecideOneBooking_thenOnlyOneDecisionApplied() throws Exception {
+        Long bookerId = userService.create(new UserDto(null, "booker", "booker@mail.ru")).getId();
+        Long bookingId = createBooking(bookerId, start, start.plusDays(1));
+        AtomicInteger approvals = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        List<Boolean> decisions = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            decisions.add(i % 2 == 0);
+        }
+
+        runConcurrently(decisions, approved -> {
+            try {
+                Status status = bookingService.approve(ownerId, bookingId, approved).getStatus();
+                (status == Status.APPROVED ? approvals : rejections).incrementAndGet();
+            } catch (NotAvailableException e) {
+                refused.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, approvals.get() + rejections.get());
+        assertEquals(THREADS - 1, refused.get());
+        Status status = bookingService.getBooking(ownerId, bookingId).getStatus();
+        assertEquals(approvals.get() == 1 ? Status.APPROVED : Status.REJECTED, status);
+    }
+
+    private <T> void runConcurrently(List<T> arguments, Consumer<T> action) throws Exception {
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (T argument : arguments) {
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                action.accept(argument);
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private Long createBooking(Long bookerId, LocalDateTime start, LocalDateTime end) {
+        return bookingService.create(bookerId, new BookingRequestDto(null, itemId, start, end, Status.WAITING)).getId();
+    }
+}
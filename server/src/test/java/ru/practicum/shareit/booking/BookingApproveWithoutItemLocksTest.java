@@ -0,0 +1,110 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingRequestDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exceptions.NotAvailableException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * То же, что BookingApproveConcurrencyTest, но без ItemLocks: параллельные решения разбирает только @Version.
+ * Проигравшие получают либо "решение уже принято" после повторной попытки, либо конфликт версий (409),
+ * если повторные попытки закончились.
+ */
+@SpringBootTest(properties = "shareit.booking.item-locks.enabled=false")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingApproveWithoutItemLocksTest {
+    private static final int THREADS = 16;
+    private final BookingService bookingService;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    ExecutorService executor;
+    Long ownerId;
+    Long bookingId;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        ownerId = userService.create(new UserDto(null, "owner", "owner@mail.ru")).getId();
+        Long itemId = itemService.create(ownerId, new ItemDto(null, "Дрель", "Ударная", true, null)).getId();
+        Long bookerId = userService.create(new UserDto(null, "booker", "booker@mail.ru")).getId();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        bookingId = bookingService.create(bookerId,
+                new BookingRequestDto(null, itemId, start, start.plusDays(1), Status.WAITING)).getId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+        //Тест без @Transactional: данные коммитятся и сами не откатываются
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void approve_whenManyThreadsDecideOneBooking_thenOnlyOneDecisionApplied() throws Exception {
+        AtomicInteger approvals = new AtomicInteger();
+        AtomicInteger rejections = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<String> unexpected = new CopyOnWriteArrayList<>();
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            boolean approved = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                try {
+                    Status status = bookingService.approve(ownerId, bookingId, approved).getStatus();
+                    (status == Status.APPROVED ? approvals : rejections).incrementAndGet();
+                } catch (NotAvailableException e) {
+                    if (e.getMessage().equals("Решение по данному запросу на бронирование уже принято")) {
+                        refused.incrementAndGet();
+                    } else {
+                        unexpected.add(e.getMessage());
+                    }
+                } catch (OptimisticLockingFailureException e) {
+                    conflicts.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of(), unexpected);
+        assertEquals(1, approvals.get() + rejections.get());
+        assertEquals(THREADS - 1, refused.get() + conflicts.get());
+        Status status = bookingService.getBooking(ownerId, bookingId).getStatus();
+        assertEquals(approvals.get() == 1 ? Status.APPROVED : Status.REJECTED, status);
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingBatchRequestDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.enums.Status;
@@ -18,6 +20,7 @@ import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exceptions.NotAvailableException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
@@ -29,6 +32,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -85,6 +89,27 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(testBookingResponseDto.getStatus().toString()), String.class));
     }
 
+    @Test
+    public void createAll_whenInvokedWithCorrectData_thenReturnResultForEachBooking() throws Exception {
+        when(bookingService.createAll(anyLong(), anyList()))
+                .thenReturn(List.of(BookingBatchResultDto.created(testBookingResponseDto),
+                        BookingBatchResultDto.rejected("Владелец вещи не может её сам забронировать")));
+
+        mvc.perform(post("/bookings/batch")
+                        .header("X-Sharer-User-Id", "2")
+                        .content(mapper.writeValueAsString(new BookingBatchRequestDto(
+                                List.of(testBookingRequestDto, testBookingRequestDtoTwo))))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].booking.id", is(testBookingResponseDto.getId()), Long.class))
+                .andExpect(jsonPath("$[0].error", nullValue()))
+                .andExpect(jsonPath("$[1].booking", nullValue()))
+                .andExpect(jsonPath("$[1].error", is("Владелец вещи не может её сам забронировать")));
+    }
+
     @Test
     public void create_whenInvokedWithoutXSharerHeader_thenReturnStatusBadRequest() throws Exception {
         BookingRequestDto bookingRequestDtoNotValid = new BookingRequestDto(1L, 1L,
@@ -304,6 +329,40 @@ public class BookingControllerTest {
         Assertions.assertEquals("Пользователь с id" + 10 + "не найден в базе данных", exception.getMessage());
     }
 
+    @Test
+    public void findAllByBookerId_whenInvokedWithCursor_thenReturnNextCursorHeader() throws Exception {
+        Cursor cursor = Cursor.of(testBookingResponseDto.getStart(), testBookingResponseDto.getId());
+        when(bookingService.findAllByBookerIdAfter(1L, "ALL", cursor, 1))
+                .thenReturn(List.of(testBookingResponseDtoTwo));
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", "1")
+                        .param("state", "ALL")
+                        .param("from", "0")
+                        .param("size", "1")
+                        .param("cursor", cursor.encode())
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].id", is(testBookingResponseDtoTwo.getId()), Long.class))
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER, Cursor.of(testBookingResponseDtoTwo.getStart(),
+                        testBookingResponseDtoTwo.getId()).encode()));
+    }
+
+    @Test
+    public void findAllByBookerId_whenInvokedWithBrokenCursor_thenReturnStatusBadRequest() throws Exception {
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", "1")
+                        .param("state", "ALL")
+                        .param("from", "0")
+                        .param("size", "1")
+                        .param("cursor", "не курсор")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void findAllByOwnerId_whenInvokedWithCorrectData_thenReturnStatusOk() throws Exception {
         when(bookingService.findAllByBookerId(2L, "ALL", 0, 2))
@@ -0,0 +1,181 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.ShortBookingDto;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    @Mock
+    BookingRepository bookingRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    BookingIntervalIndex bookingIntervalIndex;
+    LocalDateTime start;
+    LocalDateTime end;
+
+    @BeforeEach
+    public void setUp() {
+        bookingIntervalIndex = new BookingIntervalIndex(bookingRepository, transactionManager, 100, "");
+        start = LocalDateTime.now().plusDays(1).withNano(0);
+        end = start.plusDays(2);
+        when(bookingRepository.findBookingIntervals(eq(1L), eq(Status.APPROVED), any()))
+                .thenReturn(List.of(new ShortBookingDto(10L, 2L, start, end)));
+    }
+
+    @Test
+    public void isFree_whenIntervalsOverlapApprovedBooking_thenFalse() {
+        assertFalse(bookingIntervalIndex.isFree(1L, start.minusDays(1), start.plusHours(1)));
+        assertFalse(bookingIntervalIndex.isFree(1L, start.plusHours(1), start.plusHours(2)));
+        assertFalse(bookingIntervalIndex.isFree(1L, end.minusHours(1), end.plusDays(1)));
+        assertFalse(bookingIntervalIndex.isFree(1L, start.minusDays(1), end.plusDays(1)));
+        verify(bookingRepository, times(1)).findBookingIntervals(eq(1L), eq(Status.APPROVED), any());
+    }
+
+    @Test
+    public void isFree_whenIntervalEndsWhenApprovedBookingStartsOrStartsWhenItEnds_thenTrue() {
+        assertTrue(bookingIntervalIndex.isFree(1L, start.minusDays(1), start));
+        assertTrue(bookingIntervalIndex.isFree(1L, end, end.plusDays(1)));
+    }
+
+    @Test
+    public void tryReserve_whenIntervalTaken_thenOnlyFirstReservationSucceeds() {
+        assertTrue(bookingIntervalIndex.tryReserve(1L, 11L, end, end.plusDays(1)));
+        assertFalse(bookingIntervalIndex.tryReserve(1L, 12L, end.plusHours(12), end.plusDays(2)));
+        assertTrue(bookingIntervalIndex.tryReserve(1L, 11L, end, end.plusDays(1)));
+
+        bookingIntervalIndex.release(1L, 11L, end);
+        assertTrue(bookingIntervalIndex.tryReserve(1L, 12L, end.plusHours(12), end.plusDays(2)));
+    }
+
+    @Test
+    public void findBusy_whenPeriodCutsApprovedBooking_thenIntervalClipped() {
+        bookingIntervalIndex.tryReserve(1L, 11L, end.plusDays(1), end.plusDays(2));
+
+        List<AvailabilityIntervalDto> busy = bookingIntervalIndex.findBusy(1L, start.plusDays(1), end.plusDays(3));
+
+        assertEquals(List.of(new AvailabilityIntervalDto(start.plusDays(1), end),
+                new AvailabilityIntervalDto(end.plusDays(1), end.plusDays(2))), busy);
+        assertTrue(bookingIntervalIndex.findBusy(1L, end, end.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    public void isFree_whenLegacyBookingsShareStart_thenBothKept() {
+        //Вместо брони из setUp - две старые брони с одинаковым началом:
+        reset(bookingRepository);
+        when(bookingRepository.findBookingIntervals(eq(1L), eq(Status.APPROVED), any()))
+                .thenReturn(List.of(new ShortBookingDto(20L, 2L, start, start.plusHours(1)),
+                        new ShortBookingDto(21L, 3L, start, end)));
+
+        assertFalse(bookingIntervalIndex.isFree(1L, start.plusHours(2), start.plusHours(3)));
+        assertEquals(List.of(new AvailabilityIntervalDto(start, start.plusHours(1)),
+                new AvailabilityIntervalDto(start, end)), bookingIntervalIndex.findBusy(1L, start, end));
+    }
+
+    @Test
+    public void evict_whenItemEvicted_thenIntervalsReloaded() {
+        bookingIntervalIndex.isFree(1L, start, end);
+        bookingIntervalIndex.evict(1L);
+        bookingIntervalIndex.isFree(1L, start, end);
+
+        verify(bookingRepository, times(2)).findBookingIntervals(eq(1L), eq(Status.APPROVED), any());
+    }
+
+    @Test
+    public void isFree_whenNotInReadOnlyTransaction_thenIntervalsLoadedInCurrentTransaction() {
+        assertFalse(bookingIntervalIndex.isFree(1L, start, end));
+
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    public void isFree_whenInReadOnlyTransactionWithoutReplicas_thenIntervalsLoadedInCurrentTransaction() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            assertFalse(bookingIntervalIndex.isFree(1L, start, end));
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    public void isFree_whenInReadOnlyTransactionWithReplicas_thenIntervalsLoadedInSeparateWriteTransaction() {
+        bookingIntervalIndex = new BookingIntervalIndex(bookingRepository, transactionManager, 100,
+                "jdbc:postgresql://replica:5432/shareit");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            assertFalse(bookingIntervalIndex.isFree(1L, start, end));
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+
+        verify(transactionManager, times(1)).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW
+                        && !definition.isReadOnly()));
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    public void isFree_whenMaxItemsExceeded_thenLeastRecentlyUsedItemEvicted() {
+        bookingIntervalIndex = new BookingIntervalIndex(bookingRepository, transactionManager, 2, "");
+        when(bookingRepository.findBookingIntervals(longThat(id -> id > 1), eq(Status.APPROVED), any()))
+                .thenReturn(List.of());
+
+        bookingIntervalIndex.isFree(1L, start, end);
+        bookingIntervalIndex.isFree(2L, start, end);
+        bookingIntervalIndex.isFree(1L, start, end);
+        bookingIntervalIndex.isFree(3L, start, end);
+        bookingIntervalIndex.isFree(1L, start, end);
+        bookingIntervalIndex.isFree(2L, start, end);
+
+        assertEquals(2, bookingIntervalIndex.size());
+        verify(bookingRepository, times(1)).findBookingIntervals(eq(1L), eq(Status.APPROVED), any());
+        verify(bookingRepository, times(2)).findBookingIntervals(eq(2L), eq(Status.APPROVED), any());
+    }
+
+    @Test
+    public void isFree_whenMaxItemsExceeded_thenItemWithUncommittedReservationKept() {
+        bookingIntervalIndex = new BookingIntervalIndex(bookingRepository, transactionManager, 2, "");
+        when(bookingRepository.findBookingIntervals(longThat(id -> id > 1), eq(Status.APPROVED), any()))
+                .thenReturn(List.of());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(bookingIntervalIndex.tryReserve(1L, 11L, end, end.plusDays(1)));
+            bookingIntervalIndex.isFree(2L, start, end);
+            bookingIntervalIndex.isFree(3L, start, end);
+
+            assertEquals(2, bookingIntervalIndex.size());
+            assertFalse(bookingIntervalIndex.isFree(1L, end, end.plusDays(1)));
+            verify(bookingRepository, times(1)).findBookingIntervals(eq(1L), eq(Status.APPROVED), any());
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+            assertTrue(bookingIntervalIndex.isFree(1L, end, end.plusDays(1)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingOwnerBackfill;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingOwnerBackfillTest {
+    @Mock
+    BookingRepository bookingRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void run_whenOwnerIdMissing_thenOnlyMissingRowsFilledInChunksUntilNoneLeft() {
+        when(bookingRepository.findIdsWithoutOwnerId(0L, PageRequest.of(0, 2))).thenReturn(List.of(3L, 7L));
+        when(bookingRepository.findIdsWithoutOwnerId(7L, PageRequest.of(0, 2))).thenReturn(List.of(12L));
+        when(bookingRepository.fillOwnerId(anyList())).thenAnswer(invocation ->
+                invocation.<List<Long>>getArgument(0).size());
+
+        new BookingOwnerBackfill(bookingRepository, transactionManager, 2).run();
+
+        verify(bookingRepository, times(1)).fillOwnerId(List.of(3L, 7L));
+        verify(bookingRepository, times(1)).fillOwnerId(List.of(12L));
+        verify(bookingRepository, times(2)).findIdsWithoutOwnerId(anyLong(), any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    public void run_whenNoRowsWithoutOwnerId_thenSingleQueryAndNothingUpdated() {
+        when(bookingRepository.findIdsWithoutOwnerId(0L, PageRequest.of(0, 1000))).thenReturn(List.of());
+
+        new BookingOwnerBackfill(bookingRepository, transactionManager, 1000).run();
+
+        verify(bookingRepository, times(1)).findIdsWithoutOwnerId(anyLong(), any());
+        verify(bookingRepository, never()).fillOwnerId(anyList());
+        verifyNoInteractions(transactionManager);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.enums.Phase;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingPhaseScheduler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingPhaseSchedulerTest {
+    @Mock
+    BookingRepository bookingRepository;
+    @Mock
+    PlatformTransactionManager transactionManager;
+    BookingPhaseScheduler bookingPhaseScheduler;
+    LocalDateTime now;
+
+    @BeforeEach
+    public void setUp() {
+        bookingPhaseScheduler = new BookingPhaseScheduler(bookingRepository, transactionManager, Duration.ofMinutes(1));
+        now = LocalDateTime.now().withNano(0);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bookingPhaseScheduler.stop();
+    }
+
+    @Test
+    public void advance_whenBoundariesPassed_thenPhasesUpdatedAndNearestBoundaryReturned() {
+        when(bookingRepository.updatePhaseOfEnded(List.of(Phase.FUTURE, Phase.CURRENT), Phase.PAST, now))
+                .thenReturn(2);
+        when(bookingRepository.updatePhaseOfStarted(Phase.FUTURE, Phase.CURRENT, now)).thenReturn(1);
+        when(bookingRepository.findFirstStartByPhase(Phase.FUTURE)).thenReturn(now.plusDays(1));
+        when(bookingRepository.findFirstEndByPhase(Phase.CURRENT)).thenReturn(now.plusHours(1));
+
+        assertEquals(now.plusHours(1), bookingPhaseScheduler.advance(now));
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    public void advance_whenNoCurrentBookings_thenNextStartReturned() {
+        when(bookingRepository.findFirstStartByPhase(Phase.FUTURE)).thenReturn(now.plusDays(1));
+
+        assertEquals(now.plusDays(1), bookingPhaseScheduler.advance(now));
+    }
+
+    @Test
+    public void advance_whenNoUnfinishedBookings_thenNull() {
+        assertNull(bookingPhaseScheduler.advance(now));
+        verify(bookingRepository, times(1)).updatePhaseOfStarted(Phase.FUTURE, Phase.CURRENT, now);
+    }
+}
@@ -7,17 +7,23 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.ShortBookingDto;
+import ru.practicum.shareit.booking.dto.ShortBookingDtoWithItemId;
+import ru.practicum.shareit.booking.enums.Phase;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
-import javax.persistence.TypedQuery;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -52,12 +58,14 @@ public class BookingRepositoryTest {
                 testUser, null));
         testItemTwo = itemRepository.save(new Item(2L, "Вещь", "Хорошая", true, testUserTwo,
                 null));
-        testBooking = bookingRepository.save(new Booking(1L, LocalDateTime.now().minusDays(2), LocalDateTime.now(),
+        //Время без долей секунды: база округляет их до микросекунд, и курсор из сущности не совпал бы с началом в базе
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        testBooking = bookingRepository.save(new Booking(1L, now.minusDays(2), now,
                 testItem, testUserTwo, Status.WAITING));
-        testBookingTwo = bookingRepository.save(new Booking(2L, LocalDateTime.now().minusDays(1),
-                LocalDateTime.now().plusDays(2), testItemTwo, testUser, Status.WAITING));
-        testBookingThree = bookingRepository.save(new Booking(3L, LocalDateTime.now(),
-                LocalDateTime.now().plusDays(5), testItemTwo, testUser, Status.WAITING));
+        testBookingTwo = bookingRepository.save(new Booking(2L, now.minusDays(1),
+                now.plusDays(2), testItemTwo, testUser, Status.WAITING));
+        testBookingThree = bookingRepository.save(new Booking(3L, now,
+                now.plusDays(5), testItemTwo, testUser, Status.WAITING));
     }
 
     @Test
@@ -65,327 +73,213 @@ public class BookingRepositoryTest {
         assertNotNull(entityManager);
     }
 
-    //Получение всех бронирований пользователя:
-
-    //ALL
+    //Списки бронирований по состоянию (фазы и статусы - как в BookingStateFilter):
     @Test
-    public void findAllByBookerIdOrderByStartDesc_whenDataIsCorrectAndStateAll_thenReturnBookingList() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdOrderByStartDesc(testUser.getId(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 2);
-        assertEquals(bookings, List.of(testBookingThree, testBookingTwo));
+    public void findBookingResponseDtosByBookerId_whenStateAll_thenReturnBookingsByStartDesc() {
+        assertEquals(List.of(testBookingThree.getId(), testBookingTwo.getId()),
+                findByBooker(testUser, List.of(Phase.values()), List.of(Status.values())));
+        assertEquals(List.of(), findByBooker(testUserThree, List.of(Phase.values()), List.of(Status.values())));
     }
 
     @Test
-    public void findAllByBookerIdOrderByStartDesc_whenUserWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdOrderByStartDesc(testUserThree.getId(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 0);
-    }
+    public void findBookingResponseDtosByBookerId_whenStateCurrentPastOrFuture_thenFilterByPhase() {
+        Booking future = bookingRepository.save(new Booking(4L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), testItemTwo, testUser, Status.WAITING));
 
-    //WAITING
-    @Test
-    public void findAllByBookerIdAndStartIsAfterAndStatusIsOrderByStartDesc_whenDataIsCorrectAndStatusWaiting_thenReturnBookingList() {
-        testBookingTwo.setStatus(Status.APPROVED);
-        testBookingThree.setStart(LocalDateTime.now().plusHours(1));
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStartIsAfterAndStatusIsOrderByStartDesc(testUser.getId(),
-                LocalDateTime.now(), Status.WAITING, pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 1);
-        assertEquals(bookings, List.of(testBookingThree));
+        assertEquals(List.of(testBookingThree.getId(), testBookingTwo.getId()),
+                findByBooker(testUser, List.of(Phase.CURRENT), List.of(Status.values())));
+        assertEquals(List.of(testBooking.getId()),
+                findByBooker(testUserTwo, List.of(Phase.PAST), List.of(Status.values())));
+        assertEquals(List.of(future.getId()), findByBooker(testUser, List.of(Phase.FUTURE), List.of(Status.values())));
     }
 
     @Test
-    public void findAllByBookerIdAndStartIsAfterAndStatusIsOrderByStartDesc_whenUserWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStartIsAfterAndStatusIsOrderByStartDesc(testUserThree.getId(),
-                LocalDateTime.now(), Status.WAITING, pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 0);
-    }
+    public void findBookingResponseDtosByBookerId_whenStateWaitingOrRejected_thenFilterByStatus() {
+        Booking future = bookingRepository.save(new Booking(4L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), testItemTwo, testUser, Status.WAITING));
+        testBookingTwo.setStatus(Status.REJECTED);
 
-    //CURRENT
-    @Test
-    public void findAllByBookerIdAndEndIsAfterAndStartIsBeforeOrderByStartDesc_whenDataIsCorrectAndStateCurrent_thenReturnBookingList() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndEndIsAfterAndStartIsBeforeOrderByStartDesc(testUser.getId(),
-                LocalDateTime.now(), LocalDateTime.now().plusDays(7), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 2);
-        assertEquals(bookings, List.of(testBookingThree, testBookingTwo));
+        assertEquals(List.of(future.getId()), findByBooker(testUser, List.of(Phase.FUTURE), List.of(Status.WAITING)));
+        assertEquals(List.of(testBookingTwo.getId()),
+                findByBooker(testUser, List.of(Phase.values()), List.of(Status.REJECTED)));
     }
 
     @Test
-    public void findAllByBookerIdAndEndIsAfterAndStartIsBeforeOrderByStartDesc_whenUserWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndEndIsAfterAndStartIsBeforeOrderByStartDesc(testUserThree.getId(),
-                LocalDateTime.now(), LocalDateTime.now().plusDays(7), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 0);
+    public void findBookingResponseDtosByOwnerId_whenStateAll_thenReturnBookingsOfOwnerItems() {
+        assertEquals(List.of(testBookingThree.getId(), testBookingTwo.getId()),
+                findByOwner(testUserTwo, List.of(Phase.values()), List.of(Status.values())));
+        assertEquals(List.of(testBooking.getId()), findByOwner(testUser, List.of(Phase.values()),
+                List.of(Status.values())));
+        assertEquals(List.of(), findByOwner(testUserThree, List.of(Phase.values()), List.of(Status.values())));
     }
 
-    //PAST
     @Test
-    public void findAllByBookerIdAndEndIsBeforeOrderByStartDesc_whenDataIsCorrectAndStateCurrent_thenReturnBookingList() {
-        testBookingTwo.setEnd(LocalDateTime.now().minusHours(10));
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByStartDesc(testUser.getId(),
-                LocalDateTime.now(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 1);
-        assertEquals(bookings, List.of(testBookingTwo));
-    }
-
-    @Test
-    public void findAllByBookerIdAndEndIsBeforeOrderByStartDesc_whenUserWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByStartDesc(testUserThree.getId(),
-                LocalDateTime.now(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 0);
-    }
+    public void findBookingResponseDtosByOwnerId_whenStateCurrentOrWaiting_thenFilterByPhaseAndStatus() {
+        Booking future = bookingRepository.save(new Booking(4L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), testItemTwo, testUserThree, Status.WAITING));
 
-    //FUTURE
-    @Test
-    public void findAllByBookerIdAndStartIsAfterOrderByStartDesc_whenDataIsCorrectAndStateFuture_thenReturnBookingList() {
-        testBookingThree.setStart(LocalDateTime.now().plusDays(1));
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStartIsAfterOrderByStartDesc(testUser.getId(),
-                LocalDateTime.now(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 1);
-        assertEquals(bookings, List.of(testBookingThree));
+        assertEquals(List.of(testBookingThree.getId(), testBookingTwo.getId()),
+                findByOwner(testUserTwo, List.of(Phase.CURRENT), List.of(Status.values())));
+        assertEquals(List.of(future.getId()), findByOwner(testUserTwo, List.of(Phase.FUTURE), List.of(Status.WAITING)));
     }
 
+    //Для остального:
+    //Списки в DTO с курсором:
     @Test
-    public void findAllByBookerIdAndStartIsAfterOrderByStartDesc_whenUserWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStartIsAfterOrderByStartDesc(testUserThree.getId(),
-                LocalDateTime.now(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 0);
+    public void findBookingResponseDtosByBookerId_whenPagingWithCursor_thenReturnNextPages() {
+        LocalDateTime max = Cursor.MAX_TIME;
+        List<Phase> phases = List.of(Phase.values());
+        List<Status> statuses = List.of(Status.values());
+        PageRequest onePerPage = PageRequest.of(0, 1);
+
+        List<BookingResponseDto> firstPage = bookingRepository.findBookingResponseDtosByBookerId(testUser.getId(), phases,
+                statuses, max, Long.MAX_VALUE, onePerPage);
+        assertEquals(1, firstPage.size());
+        assertEquals(testBookingThree.getId(), firstPage.get(0).getId());
+        assertEquals(testItemTwo.getName(), firstPage.get(0).getItem().getName());
+        assertEquals(UserMapper.toUserDto(testUser), firstPage.get(0).getBooker());
+
+        List<BookingResponseDto> secondPage = bookingRepository.findBookingResponseDtosByBookerId(testUser.getId(), phases,
+                statuses, testBookingThree.getStart(), testBookingThree.getId(), onePerPage);
+        assertEquals(List.of(testBookingTwo.getId()), toIds(secondPage));
+
+        List<BookingResponseDto> lastPage = bookingRepository.findBookingResponseDtosByBookerId(testUser.getId(), phases,
+                statuses, testBookingTwo.getStart(), testBookingTwo.getId(), onePerPage);
+        assertEquals(0, lastPage.size());
     }
 
-    //REJECTED
     @Test
-    public void findAllByBookerIdAndStatusIsOrderByStartDesc_whenDataIsCorrectAndStatusRejected_thenReturnBookingList() {
+    public void findBookingResponseDtosByOwnerId_whenSameStartAndFilteredByStatus_thenOrderById() {
+        LocalDateTime max = Cursor.MAX_TIME;
+        List<Phase> phases = List.of(Phase.values());
+        testBookingTwo.setStart(testBookingThree.getStart());
         testBookingTwo.setStatus(Status.REJECTED);
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStatusIsOrderByStartDesc(testUser.getId(),
-                Status.REJECTED, pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 1);
-        assertEquals(bookings, List.of(testBookingTwo));
-    }
+        Booking rejected = bookingRepository.save(new Booking(4L, testBookingThree.getStart(),
+                LocalDateTime.now().plusDays(6), testItemTwo, testUserThree, Status.REJECTED));
 
-    @Test
-    public void findAllByBookerIdAndStatusIsOrderByStartDesc_whenUserWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStatusIsOrderByStartDesc(testUserThree.getId(),
-                Status.REJECTED, pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 0);
-    }
+        List<BookingResponseDto> bookings = bookingRepository.findBookingResponseDtosByOwnerId(testUserTwo.getId(),
+                phases, List.of(Status.REJECTED), max, Long.MAX_VALUE, pageRequest);
+        assertEquals(List.of(rejected.getId(), testBookingTwo.getId()), toIds(bookings));
 
-    //Получение всех бронирований для все вещей пользователя:
-    // ALL
-    @Test
-    public void findAllBookingsByOwnerId_whenDataIsCorrectAndStateAll_thenReturnBookingList() {
-        TypedQuery<Booking> query = entityManager.getEntityManager()
-                .createQuery("SELECT b FROM Booking b " +
-                        "INNER JOIN Item i ON b.item.id = i.id " +
-                        "WHERE i.owner.id = :ownerId " +
-                        "ORDER BY b.start DESC", Booking.class);
-        List<Booking> resultList = query.setParameter("ownerId", testUserTwo.getId()).getResultList();
-        assertNotNull(resultList);
-        assertEquals(resultList.size(), 2);
-        assertEquals(resultList, List.of(testBookingThree, testBookingTwo));
-
-        List<Booking> bookings = bookingRepository.findAllBookingsByOwnerId(testUserTwo.getId(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 2);
-        assertEquals(bookings, List.of(testBookingThree, testBookingTwo));
+        bookings = bookingRepository.findBookingResponseDtosByOwnerId(testUserTwo.getId(), phases,
+                List.of(Status.REJECTED), rejected.getStart(), rejected.getId(), pageRequest);
+        assertEquals(List.of(testBookingTwo.getId()), toIds(bookings));
     }
 
     @Test
-    public void findAllBookingsByOwnerId_whenOwnerWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllBookingsByOwnerId(testUserThree.getId(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 0);
+    public void findBookingResponseDtosByOwnerId_whenStateIsPast_thenReturnOnlyFinishedBookings() {
+        List<BookingResponseDto> bookings = bookingRepository.findBookingResponseDtosByOwnerId(testUser.getId(),
+                List.of(Phase.PAST), List.of(Status.values()), Cursor.MAX_TIME, Long.MAX_VALUE, pageRequest);
+        assertEquals(List.of(testBooking.getId()), toIds(bookings));
+        assertEquals(testItem.getId(), bookings.get(0).getItem().getId());
+        assertEquals(testUserTwo.getId(), bookings.get(0).getBooker().getId());
     }
 
-    //WAITING
     @Test
-    public void findAllBookingsByOwnerIdWithStatusWaiting_whenDataIsCorrectAndStatusWaiting_thenReturnBookingList() {
-        testBookingTwo.setStatus(Status.APPROVED);
-        testBookingThree.setStart(LocalDateTime.now().plusHours(1));
-        TypedQuery<Booking> query = entityManager.getEntityManager()
-                .createQuery("SELECT b FROM Booking b " +
-                        "INNER JOIN Item i ON b.item.id = i.id " +
-                        "WHERE i.owner.id = :ownerId " +
-                        "AND b.start > :time AND b.status = :status " +
-                        "ORDER BY b.start DESC", Booking.class);
-        List<Booking> resultList = query.setParameter("ownerId", testUserTwo.getId())
-                .setParameter("time", LocalDateTime.now())
-                .setParameter("status", Status.WAITING).getResultList();
-        assertNotNull(resultList);
-        assertEquals(resultList.size(), 1);
-        assertEquals(resultList.get(0), testBookingThree);
-
-        List<Booking> bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusWaiting(testUserTwo.getId(),
-                LocalDateTime.now(), Status.WAITING, pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 1);
-        assertEquals(bookings, List.of(testBookingThree));
+    public void findIdsWithoutOwnerId_whenOwnerIdFilledOnCreate_thenNothingToBackfill() {
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(List.of(), bookingRepository.findIdsWithoutOwnerId(0L, PageRequest.of(0, 10)));
+        assertEquals(0, bookingRepository.fillOwnerId(List.of(testBooking.getId(), testBookingTwo.getId())));
+        assertEquals(List.of(testBooking.getId()), findByOwner(testUser, List.of(Phase.values()),
+                List.of(Status.values())));
     }
 
     @Test
-    public void findAllBookingsByOwnerIdWithStatusWaiting_whenUserWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusWaiting(testUserThree.getId(),
-                LocalDateTime.now(), Status.WAITING, pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 0);
+    public void fillOwnerId_whenOwnerIdMissing_thenCopiedFromItem() {
+        entityManager.flush();
+        //Строка, созданная до появления owner_id:
+        entityManager.getEntityManager().createNativeQuery("UPDATE bookings SET owner_id = NULL WHERE id = :id")
+                .setParameter("id", testBookingTwo.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        assertEquals(List.of(testBookingTwo.getId()), bookingRepository.findIdsWithoutOwnerId(0L, PageRequest.of(0, 10)));
+        assertEquals(1, bookingRepository.fillOwnerId(List.of(testBooking.getId(), testBookingTwo.getId())));
+        assertEquals(List.of(), bookingRepository.findIdsWithoutOwnerId(0L, PageRequest.of(0, 10)));
+        assertEquals(List.of(testBookingThree.getId(), testBookingTwo.getId()), findByOwner(testUserTwo,
+                List.of(Phase.values()), List.of(Status.values())));
     }
 
-    //CURRENT
-    @Test
-    public void findAllBookingsByOwnerIdWithStatusCurrent_whenDataIsCorrectAndStateCurrent_thenReturnBookingList() {
-        TypedQuery<Booking> query = entityManager.getEntityManager()
-                .createQuery("SELECT b FROM Booking b " +
-                        "INNER JOIN Item i ON b.item.id = i.id " +
-                        "WHERE i.owner.id = :ownerId " +
-                        "AND :time BETWEEN b.start AND b.end " +
-                        "ORDER BY b.start DESC", Booking.class);
-        List<Booking> resultList = query.setParameter("ownerId", testUserTwo.getId())
-                .setParameter("time", LocalDateTime.now()).getResultList();
-        assertNotNull(resultList);
-        assertEquals(resultList.size(), 2);
-        assertEquals(resultList, List.of(testBookingThree, testBookingTwo));
-
-        List<Booking> bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusCurrent(testUserTwo.getId(),
-                LocalDateTime.now(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 2);
-        assertEquals(bookings, List.of(testBookingThree, testBookingTwo));
+    private List<Long> findByBooker(User booker, List<Phase> phases, List<Status> statuses) {
+        return toIds(bookingRepository.findBookingResponseDtosByBookerId(booker.getId(), phases, statuses,
+                Cursor.MAX_TIME, Long.MAX_VALUE, pageRequest));
     }
 
-    @Test
-    public void findAllBookingsByOwnerIdWithStatusCurrent_whenOwnerWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusCurrent(testUserThree.getId(),
-                LocalDateTime.now(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 0);
+    private List<Long> findByOwner(User owner, List<Phase> phases, List<Status> statuses) {
+        return toIds(bookingRepository.findBookingResponseDtosByOwnerId(owner.getId(), phases, statuses,
+                Cursor.MAX_TIME, Long.MAX_VALUE, pageRequest));
     }
 
-    //PAST
-    @Test
-    public void findAllBookingsByOwnerIdWithStatusPast_whenDataIsCorrectAndStateCurrent_thenReturnBookingList() {
-        testBookingTwo.setEnd(LocalDateTime.now().minusHours(10));
-        testBookingThree.setStart(LocalDateTime.now().plusDays(1));
-        TypedQuery<Booking> query = entityManager.getEntityManager()
-                .createQuery("SELECT b FROM Booking b " +
-                        "INNER JOIN Item i ON b.item.id = i.id " +
-                        "WHERE i.owner.id = :ownerId " +
-                        "AND b.end < :time " +
-                        "ORDER BY b.start DESC", Booking.class);
-        List<Booking> resultList = query.setParameter("ownerId", testUserTwo.getId())
-                .setParameter("time", LocalDateTime.now()).getResultList();
-        assertNotNull(resultList);
-        assertEquals(resultList.size(), 1);
-        assertEquals(resultList.get(0), testBookingTwo);
-
-        List<Booking> bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusPast(testUserTwo.getId(),
-                LocalDateTime.now(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 1);
-        assertEquals(bookings, List.of(testBookingTwo));
+    private List<Long> toIds(List<BookingResponseDto> bookings) {
+        return bookings.stream().map(BookingResponseDto::getId).collect(Collectors.toList());
     }
 
     @Test
-    public void findAllBookingsByOwnerIdWithStatusPast_whenOwnerWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusPast(testUserThree.getId(),
-                LocalDateTime.now(), pageRequest);
-        assertNotNull(bookings);
-        assertEquals(bookings.size(), 0);
+    public void findFirstByBookerAndItemAndEndIsBeforeOrderByEndDesc_whenDataIsCorrect_thenReturnBooking() {
+        Booking booking = bookingRepository.findFirstByBookerAndItemAndEndIsBeforeOrderByEndDesc(testUser,
+                testItemTwo, LocalDateTime.now().plusDays(2));
+        assertNotNull(booking);
+        assertEquals(booking, testBookingTwo);
     }
 
-    //FUTURE
     @Test
-    public void findAllBookingsByOwnerIdWithStatusFuture_whenDataIsCorrectAndStateFuture_thenReturnBookingList() {
-        testBookingThree.setStart(LocalDateTime.now().plusDays(1));
-        TypedQuery<Booking> query = entityManager.getEntityManager()
-                .createQuery("SELECT b FROM Booking b " +
-                        "INNER JOIN Item i ON b.item.id = i.id " +
-                        "WHERE i.owner.id = :ownerId " +
-                        "AND b.start > :time " +
-                        "ORDER BY b.start DESC", Booking.class);
-        List<Booking> resultList = query.setParameter("ownerId", testUserTwo.getId())
-                .setParameter("time", LocalDateTime.now()).getResultList();
-        assertNotNull(resultList);
-        assertEquals(resultList.size(), 1);
-        assertEquals(resultList.get(0), testBookingThree);
-
-        List<Booking> bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusFuture(testUserTwo.getId(),
-                LocalDateTime.now(), pageRequest);
+    public void findLastAndNextBookingsForItems_whenDataIsCorrect_thenReturnLastAndNextBookingPerItem() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking futureBooking = bookingRepository.save(new Booking(4L, now.plusDays(3), now.plusDays(4),
+                testItemTwo, testUserThree, Status.APPROVED));
+        bookingRepository.save(new Booking(5L, now.plusDays(1), now.plusDays(2),
+                testItemTwo, testUserThree, Status.REJECTED));
+        bookingRepository.save(new Booking(6L, now.plusDays(6), now.plusDays(7),
+                testItemTwo, testUserThree, Status.WAITING));
+
+        List<ShortBookingDtoWithItemId> bookings = bookingRepository.findLastAndNextBookingsForItems(
+                List.of(testItem.getId(), testItemTwo.getId()), Status.REJECTED, now.plusHours(1));
         assertNotNull(bookings);
-        assertEquals(bookings.size(), 1);
-        assertEquals(bookings, List.of(testBookingThree));
+        assertEquals(bookings.size(), 3);
+        List<Long> ids = bookings.stream().map(ShortBookingDtoWithItemId::getId).sorted().collect(Collectors.toList());
+        assertEquals(ids, List.of(testBooking.getId(), testBookingThree.getId(), futureBooking.getId()));
     }
 
     @Test
-    public void findAllBookingsByOwnerIdWithStatusFuture_whenOwnerWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndStartIsAfterOrderByStartDesc(testUserThree.getId(),
-                LocalDateTime.now(), pageRequest);
+    public void findLastAndNextBookingsForItems_whenItemsWithoutBookings_thenReturnEmptyList() {
+        Item item = itemRepository.save(new Item(3L, "Без брони", "Описание", true, testUserThree, null));
+        List<ShortBookingDtoWithItemId> bookings = bookingRepository.findLastAndNextBookingsForItems(
+                List.of(item.getId()), Status.REJECTED, LocalDateTime.now());
         assertNotNull(bookings);
         assertEquals(bookings.size(), 0);
     }
 
-    //REJECTED
     @Test
-    public void findAllBookingsByOwnerIdWithStatusRejected_whenDataIsCorrectAndStatusRejected_thenReturnBookingList() {
-        testBookingTwo.setStatus(Status.REJECTED);
-        TypedQuery<Booking> query = entityManager.getEntityManager()
-                .createQuery("SELECT b FROM Booking b " +
-                        "INNER JOIN Item i ON b.item.id = i.id " +
-                        "WHERE i.owner.id = :ownerId " +
-                        "AND b.status = :status " +
-                        "ORDER BY b.start DESC", Booking.class);
-        List<Booking> resultList = query.setParameter("ownerId", testUserTwo.getId())
-                .setParameter("status", Status.REJECTED).getResultList();
-        assertNotNull(resultList);
-        assertEquals(resultList.size(), 1);
-        assertEquals(resultList.get(0), testBookingTwo);
-
-        List<Booking> bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusRejected(testUserTwo.getId(),
-                Status.REJECTED, pageRequest);
+    public void findLastBooking_whenDataIsCorrect_thenReturnOnlyLatestStartedBooking() {
+        List<ShortBookingDto> bookings = bookingRepository.findLastBooking(testItemTwo.getId(), Status.REJECTED,
+                LocalDateTime.now().plusHours(1), PageRequest.of(0, 1));
         assertNotNull(bookings);
         assertEquals(bookings.size(), 1);
-        assertEquals(bookings, List.of(testBookingTwo));
+        assertEquals(bookings.get(0).getId(), testBookingThree.getId());
+        assertEquals(bookings.get(0).getBookerId(), testUser.getId());
     }
 
     @Test
-    public void findAllBookingsByOwnerIdWithStatusRejected_whenUserWithoutBookings_thenReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllBookingsByOwnerIdWithStatusRejected(testUserThree.getId(),
-                Status.REJECTED, pageRequest);
+    public void findNextBooking_whenRejectedBookingIsEarlier_thenSkipRejectedBooking() {
+        LocalDateTime now = LocalDateTime.now();
+        bookingRepository.save(new Booking(4L, now.plusDays(1), now.plusDays(2),
+                testItem, testUserThree, Status.REJECTED));
+        Booking nextBooking = bookingRepository.save(new Booking(5L, now.plusDays(3), now.plusDays(4),
+                testItem, testUserThree, Status.WAITING));
+        List<ShortBookingDto> bookings = bookingRepository.findNextBooking(testItem.getId(), Status.REJECTED,
+                now, PageRequest.of(0, 1));
         assertNotNull(bookings);
-        assertEquals(bookings.size(), 0);
-    }
-
-    //Для остального:
-    @Test
-    public void findFirstByBookerAndItemAndEndIsBeforeOrderByEndDesc_whenDataIsCorrect_thenReturnBooking() {
-        Booking booking = bookingRepository.findFirstByBookerAndItemAndEndIsBeforeOrderByEndDesc(testUser,
-                testItemTwo, LocalDateTime.now().plusDays(2));
-        assertNotNull(booking);
-        assertEquals(booking, testBookingTwo);
+        assertEquals(bookings.size(), 1);
+        assertEquals(bookings.get(0).getId(), nextBooking.getId());
     }
 
     @Test
-    public void findAllBookingsItem_whenDataIsCorrect_thenReturnBookingList() {
-        TypedQuery<Booking> query = entityManager.getEntityManager()
-                .createQuery("SELECT b FROM Booking b " +
-                        "INNER JOIN Item i ON b.item.id = i.id " +
-                        "WHERE i.id = :itemId " +
-                        "ORDER BY b.start DESC", Booking.class);
-        List<Booking> resultList = query.setParameter("itemId", testItemTwo.getId()).getResultList();
-        assertNotNull(resultList);
-        assertEquals(resultList.size(), 2);
-        assertEquals(resultList, List.of(testBookingThree, testBookingTwo));
-
-        List<Booking> bookings = bookingRepository.findAllBookingsItem(testItemTwo.getId());
+    public void findNextBooking_whenNoFutureBookings_thenReturnEmptyList() {
+        List<ShortBookingDto> bookings = bookingRepository.findNextBooking(testItem.getId(), Status.REJECTED,
+                LocalDateTime.now(), PageRequest.of(0, 1));
         assertNotNull(bookings);
-        assertEquals(bookings.size(), 2);
-        assertEquals(bookings, List.of(testBookingThree, testBookingTwo));
+        assertEquals(bookings.size(), 0);
     }
-}
\ No newline at end of file
+}
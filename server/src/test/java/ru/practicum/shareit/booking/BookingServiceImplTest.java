@@ -5,15 +5,26 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.dto.BookingBatchRequestDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.Phase;
 import ru.practicum.shareit.booking.enums.Status;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.booking.service.BookingPhaseScheduler;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.service.ItemLocks;
+import ru.practicum.shareit.datasource.ReplicaLagTracker;
 import ru.practicum.shareit.exceptions.NotAvailableException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.TimeConflictException;
@@ -21,16 +32,21 @@ import ru.practicum.shareit.exceptions.ValidationException;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceChecker;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +60,18 @@ public class BookingServiceImplTest {
     ItemRepository itemRepository;
     @Mock
     UserRepository userRepository;
+    @Mock
+    UserExistenceChecker userExistenceChecker;
+    @Mock
+    BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    ReplicaLagTracker replicaLagTracker;
+    @Mock
+    BookingPhaseScheduler bookingPhaseScheduler;
+    @Spy
+    ItemLocks itemLocks = new ItemLocks(true, 16);
+    @Mock
+    PlatformTransactionManager transactionManager;
     User testUser;
     User testUserTwo;
     Item testItem;
@@ -73,6 +101,8 @@ public class BookingServiceImplTest {
     public void create_whenDataIsCorrect_thenSaveBooking() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(testItem));
+        when(bookingIntervalIndex.isFree(testItem.getId(), testBookingRequestDto.getStart(),
+                testBookingRequestDto.getEnd())).thenReturn(true);
         when(bookingRepository.save(any())).thenReturn(testBookingOne);
         BookingResponseDto bookingResponseDto = BookingMapper.toBookingResponseDto(testBookingOne);
         BookingResponseDto newBookingResponseDto = bookingService.create(testUserTwo.getId(), testBookingRequestDto);
@@ -119,6 +149,7 @@ public class BookingServiceImplTest {
                 Status.WAITING);
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(testItem));
+        when(bookingIntervalIndex.isFree(anyLong(), any(), any())).thenReturn(true);
         when(bookingRepository.save(any())).thenThrow(new TimeConflictException("Дата окончания бронирования " +
                 "не может быть раньше даты начала бронирования или равна ей"));
 
@@ -146,10 +177,119 @@ public class BookingServiceImplTest {
         verify(itemRepository, times(1)).findById(anyLong());
     }
 
+    @Test
+    public void createAll_whenSomeBookingsInvalid_thenSaveOthersAndReturnResultsInOrder() {
+        BookingRequestDto ownItem = new BookingRequestDto(null, 2L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), null);
+        BookingRequestDto unknownItem = new BookingRequestDto(null, 99L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), null);
+        BookingRequestDto endBeforeStart = new BookingRequestDto(null, 1L, LocalDateTime.now().plusDays(2),
+                LocalDateTime.now().plusDays(1), null);
+        when(userRepository.findById(testUserTwo.getId())).thenReturn(Optional.of(testUserTwo));
+        when(itemRepository.findAllById(List.of(1L, 2L, 99L))).thenReturn(List.of(testItem, testItemTwo));
+        when(bookingIntervalIndex.isFree(eq(1L), any(), any())).thenReturn(true);
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BookingBatchResultDto> results = bookingService.createAll(testUserTwo.getId(),
+                List.of(testBookingRequestDto, ownItem, unknownItem, endBeforeStart));
+
+        assertEquals(4, results.size());
+        assertEquals(testItem.getId(), results.get(0).getBooking().getItem().getId());
+        assertEquals(Status.WAITING, results.get(0).getBooking().getStatus());
+        assertNull(results.get(0).getError());
+        assertNull(results.get(1).getBooking());
+        assertEquals("Владелец вещи не может её сам забронировать", results.get(1).getError());
+        assertEquals("Вещь с id 99 не найдена в базе данных", results.get(2).getError());
+        assertEquals("Дата окончания бронирования не может быть раньше даты начала бронирования или равна ей",
+                results.get(3).getError());
+        verify(userRepository, times(1)).findById(testUserTwo.getId());
+        verify(itemRepository, times(1)).findAllById(anyList());
+        verify(itemRepository, never()).findById(anyLong());
+        verify(bookingRepository, times(1)).saveAll(argThat(bookings -> ((List<?>) bookings).size() == 1));
+    }
+
+    @Test
+    public void create_whenItemAlreadyBookedForThisTime_thenBookingNotSave() {
+        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(testItem));
+        when(bookingIntervalIndex.isFree(anyLong(), any(), any())).thenReturn(false);
+
+        NotAvailableException exception = assertThrows(
+                NotAvailableException.class,
+                () -> bookingService.create(testUserTwo.getId(), testBookingRequestDto));
+        assertEquals("Вещь с id " + testItem.getId() + " уже забронирована на это время", exception.getMessage());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    public void approve_whenItemAlreadyBookedForThisTime_thenBookingNotApproved() {
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.ofNullable(testBookingOne));
+        when(bookingIntervalIndex.tryReserve(anyLong(), anyLong(), any(), any())).thenReturn(false);
+
+        NotAvailableException exception = assertThrows(
+                NotAvailableException.class,
+                () -> bookingService.approve(testUser.getId(), testBookingOne.getId(), true));
+        assertEquals("Вещь с id " + testItem.getId() + " уже забронирована на это время", exception.getMessage());
+        assertEquals(Status.WAITING, testBookingOne.getStatus());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    public void createAll_whenUserNotFound_thenNotFoundExceptionThrown() {
+        long userId = 10;
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+
+        NotFoundException exception = assertThrows(
+                NotFoundException.class,
+                () -> bookingService.createAll(userId, List.of(testBookingRequestDto)));
+        assertEquals("Пользователь с id " + userId + " не найден в базе данных", exception.getMessage());
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void createAll_whenBookingsMissingOrTooMany_thenValidationExceptionThrown() {
+        List<BookingRequestDto> tooMany = Collections.nCopies(BookingBatchRequestDto.MAX_SIZE + 1,
+                testBookingRequestDto);
+
+        assertThrows(ValidationException.class, () -> bookingService.createAll(testUserTwo.getId(), null));
+        ValidationException exception = assertThrows(
+                ValidationException.class,
+                () -> bookingService.createAll(testUserTwo.getId(), tooMany));
+        assertEquals("Пакет должен содержать не более " + BookingBatchRequestDto.MAX_SIZE + " бронирований",
+                exception.getMessage());
+        verify(userRepository, never()).findById(anyLong());
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void createAll_whenBookingsIncomplete_thenRejectedEach() {
+        BookingRequestDto withoutStart = new BookingRequestDto(null, 1L, null, LocalDateTime.now().plusDays(2), null);
+        BookingRequestDto withoutEnd = new BookingRequestDto(null, 1L, LocalDateTime.now().plusDays(1), null, null);
+        when(userRepository.findById(testUserTwo.getId())).thenReturn(Optional.of(testUserTwo));
+        when(itemRepository.findAllById(List.of(1L))).thenReturn(List.of(testItem));
+        when(bookingIntervalIndex.isFree(eq(1L), any(), any())).thenReturn(true);
+        when(bookingRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BookingBatchResultDto> results = bookingService.createAll(testUserTwo.getId(),
+                Arrays.asList(withoutStart, null, withoutEnd, testBookingRequestDto));
+
+        assertEquals(4, results.size());
+        for (int i = 0; i < 3; i++) {
+            assertNull(results.get(i).getBooking());
+            assertEquals("В бронировании должны быть указаны вещь, дата начала и дата окончания",
+                    results.get(i).getError());
+        }
+        assertEquals(testItem.getId(), results.get(3).getBooking().getItem().getId());
+        verify(bookingRepository, times(1)).saveAll(argThat(bookings -> ((List<?>) bookings).size() == 1));
+    }
+
     @Test
     public void approve_withApprovedIsTrue_thenApproveBooking() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.ofNullable(testBookingOne));
+        when(bookingIntervalIndex.tryReserve(testItem.getId(), testBookingOne.getId(), testBookingOne.getStart(),
+                testBookingOne.getEnd())).thenReturn(true);
         when(bookingRepository.save(any())).thenReturn(testBookingOne);
         BookingResponseDto bookingResponseDto = BookingMapper.toBookingResponseDto(testBookingOne);
         BookingResponseDto newBookingResponseDto = bookingService.approve(testUser.getId(),
@@ -162,14 +302,62 @@ public class BookingServiceImplTest {
         assertEquals(newBookingResponseDto.getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(newBookingResponseDto.getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(newBookingResponseDto.getStatus(), Status.APPROVED);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1)).findById(anyLong());
         verify(bookingRepository, times(1)).save(any());
+        verify(replicaLagTracker, times(1)).pin(testUser.getId(), testUserTwo.getId());
+    }
+
+    @Test
+    public void approve_whenBookingChangedConcurrently_thenApproveRetried() {
+        when(bookingRepository.findItemIdById(testBookingOne.getId())).thenReturn(Optional.of(testItem.getId()));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findById(testBookingOne.getId())).thenAnswer(invocation -> Optional.of(
+                new Booking(1L, testBookingOne.getStart(), testBookingOne.getEnd(), testItem, testUserTwo, Status.WAITING)));
+        when(bookingIntervalIndex.tryReserve(anyLong(), anyLong(), any(), any())).thenReturn(true);
+        when(bookingRepository.save(any()))
+                .thenThrow(new OptimisticLockingFailureException("Бронирование изменено"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        BookingResponseDto bookingResponseDto = bookingService.approve(testUser.getId(), testBookingOne.getId(), true);
+
+        assertEquals(Status.APPROVED, bookingResponseDto.getStatus());
+        verify(bookingRepository, times(2)).save(any());
+        verify(bookingIntervalIndex, times(1)).evict(testItem.getId());
+        verify(itemLocks, times(2)).withLock(eq(testItem.getId()), any());
+    }
+
+    @Test
+    public void approve_whenOverlapRejectedByDatabase_thenItemEvictedAndNotAvailableExceptionThrown() {
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findById(testBookingOne.getId())).thenAnswer(invocation -> Optional.of(
+                new Booking(1L, testBookingOne.getStart(), testBookingOne.getEnd(), testItem, testUserTwo, Status.WAITING)));
+        when(bookingIntervalIndex.tryReserve(anyLong(), anyLong(), any(), any())).thenReturn(true);
+        when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new DataIntegrityViolationException("bookings_no_overlap")).when(bookingRepository).flush();
+
+        assertThrows(NotAvailableException.class,
+                () -> bookingService.approve(testUser.getId(), testBookingOne.getId(), true));
+        verify(bookingIntervalIndex, times(1)).evict(testItem.getId());
+        verify(replicaLagTracker, never()).pin(anyLong(), anyLong());
+    }
+
+    @Test
+    public void approve_whenConflictRepeats_thenOptimisticLockingFailureExceptionThrown() {
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findById(testBookingOne.getId())).thenAnswer(invocation -> Optional.of(
+                new Booking(1L, testBookingOne.getStart(), testBookingOne.getEnd(), testItem, testUserTwo, Status.WAITING)));
+        when(bookingRepository.save(any())).thenThrow(new OptimisticLockingFailureException("Бронирование изменено"));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> bookingService.approve(testUser.getId(), testBookingOne.getId(), false));
+        verify(bookingRepository, times(3)).save(any());
+        verify(replicaLagTracker, never()).pin(anyLong(), anyLong());
     }
 
     @Test
     public void approve_whenApprovedIsFalse_thenRejectBooking() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.ofNullable(testBookingOne));
         when(bookingRepository.save(any())).thenReturn(testBookingOne);
         BookingResponseDto bookingResponseDto = BookingMapper.toBookingResponseDto(testBookingOne);
@@ -183,7 +371,7 @@ public class BookingServiceImplTest {
         assertEquals(newBookingResponseDto.getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(newBookingResponseDto.getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(newBookingResponseDto.getStatus(), Status.REJECTED);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1)).findById(anyLong());
         verify(bookingRepository, times(1)).save(any());
     }
@@ -191,7 +379,7 @@ public class BookingServiceImplTest {
     @Test
     public void approve_whenBookingNotFound_thenBookingNotBeApproved() {
         long bookingId = 10;
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
         when(bookingRepository.findById(bookingId))
                 .thenThrow(new NotFoundException("Запрос на бронирование с id " + bookingId + " не найден в базе данных"));
 
@@ -199,41 +387,41 @@ public class BookingServiceImplTest {
                 NotFoundException.class,
                 () -> bookingService.approve(testUserTwo.getId(), bookingId, true));
         assertEquals("Запрос на бронирование с id " + bookingId + " не найден в базе данных", exception.getMessage());
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1)).findById(bookingId);
     }
 
     @Test
     public void approve_whenBookingWithStartIsBeforeCurrentTime_thenBookingNotBeApproved() {
         testBookingOne.setStart(LocalDateTime.now().minusMinutes(1));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.ofNullable(testBookingOne));
 
         TimeConflictException exception = assertThrows(
                 TimeConflictException.class,
                 () -> bookingService.approve(testUser.getId(), testBookingRequestDto.getId(), true));
         assertEquals("Время начала брони не может быть раньше текущего", exception.getMessage());
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1)).findById(anyLong());
     }
 
     @Test
     public void approve_withApprovedWithoutStatusWaiting_thenApproveNotBeApproved() {
         testBookingOne.setStatus(Status.APPROVED);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.ofNullable(testBookingOne));
 
         NotAvailableException exception = assertThrows(
                 NotAvailableException.class,
                 () -> bookingService.approve(testUser.getId(), testBookingRequestDto.getId(), true));
         assertEquals("Решение по данному запросу на бронирование уже принято", exception.getMessage());
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1)).findById(anyLong());
     }
 
     @Test
     public void getBooking_whenDataIsCorrect_thenReturnBooking() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.ofNullable(testBookingOne));
         BookingResponseDto bookingResponseDto = bookingService.getBooking(testUserTwo.getId(), testBookingOne.getId());
 
@@ -244,39 +432,40 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDto.getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDto.getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDto.getStatus(), Status.WAITING);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1)).findById(anyLong());
     }
 
     @Test
     public void getBooking_whenUserNotFound_thenNotFoundExceptionThrown() {
         long userId = 10;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userExistenceChecker.exists(userId)).thenReturn(false);
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> bookingService.getBooking(userId, testBookingOne.getId()));
         assertEquals("Пользователь с id " + userId + " не найден в базе данных", exception.getMessage());
-        verify(userRepository, times(1)).findById(10L);
+        verify(userExistenceChecker, times(1)).exists(10L);
     }
 
     @Test
     public void getBooking_whenUserNotOwnerOrBooker_thenNotFoundExceptionThrown() {
         User user = new User(3L, "Random", "random@mail.ru");
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userExistenceChecker.exists(user.getId())).thenReturn(true);
 
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> bookingService.getBooking(user.getId(), testBookingOne.getId()));
         assertEquals("Просматривать бронирование может либо владелец вещи, либо автор бронирования",
                 exception.getMessage());
-        verify(userRepository, times(1)).findById(user.getId());
+        verify(userExistenceChecker, times(1)).exists(user.getId());
     }
 
     @Test
     public void findAllByBookerId_whenDataIsCorrectAndStateIsAll_thenReturnBooking() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(anyLong(), any())).thenReturn(List.of(testBookingOne,
-                testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByBookerId(anyLong(), eq(List.of(Phase.values())),
+                eq(List.of(Status.values())), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByBookerId(testUserTwo.getId(),
                 "ALL", 0, 5);
 
@@ -288,15 +477,17 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.WAITING);
-        verify(userRepository, times(1)).findById(anyLong());
-        verify(bookingRepository, times(1)).findAllByBookerIdOrderByStartDesc(anyLong(), any());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
+        verify(bookingRepository, times(1))
+                .findBookingResponseDtosByBookerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByBookerId_whenDataIsCorrectAndStateIsCurrent_thenReturnBooking() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
-        when(bookingRepository.findAllByBookerIdAndEndIsAfterAndStartIsBeforeOrderByStartDesc(anyLong(), any(), any(),
-                any())).thenReturn(List.of(testBookingOne, testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByBookerId(anyLong(), eq(List.of(Phase.CURRENT)),
+                eq(List.of(Status.values())), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByBookerId(testUserTwo.getId(),
                 "CURRENT", 0, 5);
 
@@ -308,18 +499,19 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.WAITING);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1))
-                .findAllByBookerIdAndEndIsAfterAndStartIsBeforeOrderByStartDesc(anyLong(), any(), any(), any());
+                .findBookingResponseDtosByBookerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByBookerId_whenDataIsCorrectAndStateIsPast_thenReturnBooking() {
         testBookingOne.setStart(LocalDateTime.now().minusDays(3));
         testBookingOne.setEnd(LocalDateTime.now().minusDays(1));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
-        when(bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(List.of(testBookingOne, testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByBookerId(anyLong(), eq(List.of(Phase.PAST)),
+                eq(List.of(Status.values())), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByBookerId(testUserTwo.getId(),
                 "PAST", 0, 5);
 
@@ -331,18 +523,19 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.WAITING);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1))
-                .findAllByBookerIdAndEndIsBeforeOrderByStartDesc(anyLong(), any(), any());
+                .findBookingResponseDtosByBookerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByBookerId_whenDataIsCorrectAndStateIsFuture_thenReturnBooking() {
         testBookingOne.setStart(LocalDateTime.now().plusDays(1));
         testBookingOne.setEnd(LocalDateTime.now().plusDays(3));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
-        when(bookingRepository.findAllByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(List.of(testBookingOne, testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByBookerId(anyLong(), eq(List.of(Phase.FUTURE)),
+                eq(List.of(Status.values())), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByBookerId(testUserTwo.getId(),
                 "FUTURE", 0, 5);
 
@@ -354,16 +547,17 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.WAITING);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1))
-                .findAllByBookerIdAndStartIsAfterOrderByStartDesc(anyLong(), any(), any());
+                .findBookingResponseDtosByBookerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByBookerId_whenDataIsCorrectAndStatusIsWaiting_thenReturnBooking() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
-        when(bookingRepository.findAllByBookerIdAndStartIsAfterAndStatusIsOrderByStartDesc(anyLong(), any(), any(),
-                any())).thenReturn(List.of(testBookingOne, testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByBookerId(anyLong(), eq(List.of(Phase.FUTURE)),
+                eq(List.of(Status.WAITING)), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByBookerId(testUserTwo.getId(),
                 "WAITING", 0, 5);
 
@@ -375,17 +569,18 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.WAITING);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1))
-                .findAllByBookerIdAndStartIsAfterAndStatusIsOrderByStartDesc(anyLong(), any(), any(), any());
+                .findBookingResponseDtosByBookerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByBookerId_whenDataIsCorrectAndStatusIsRejected_thenReturnBooking() {
         testBookingOne.setStatus(Status.REJECTED);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
-        when(bookingRepository.findAllByBookerIdAndStatusIsOrderByStartDesc(anyLong(), any(), any()))
-                .thenReturn(List.of(testBookingOne, testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByBookerId(anyLong(), eq(List.of(Phase.values())),
+                eq(List.of(Status.REJECTED)), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByBookerId(testUserTwo.getId(),
                 "REJECTED", 0, 5);
 
@@ -397,37 +592,72 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.REJECTED);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1))
-                .findAllByBookerIdAndStatusIsOrderByStartDesc(anyLong(), any(), any());
+                .findBookingResponseDtosByBookerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByBookerId_withUnknownState_ValidationExceptionThrown() {
         String state = "all";
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
         ValidationException exception = assertThrows(
                 ValidationException.class,
                 () -> bookingService.findAllByBookerId(testUser.getId(), state, 0, 5));
         assertEquals("Unknown state: " + state, exception.getMessage());
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
     }
 
     @Test
     public void findAllByBookerId_whenUserNotFound_thenNotFoundExceptionThrown() {
         long userId = 10;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userExistenceChecker.exists(userId)).thenReturn(false);
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> bookingService.findAllByBookerId(userId, "ALL", 0, 5));
         assertEquals("Пользователь с id " + userId + " не найден в базе данных", exception.getMessage());
-        verify(userRepository, times(1)).findById(10L);
+        verify(userExistenceChecker, times(1)).exists(10L);
+    }
+
+    @Test
+    public void findAllByBookerIdAfter_whenStateIsWaiting_thenQueryByCursorWithWaitingStatus() {
+        Cursor cursor = Cursor.of(testBookingTwo.getStart(), testBookingTwo.getId());
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByBookerId(eq(testUserTwo.getId()), eq(List.of(Phase.FUTURE)),
+                eq(List.of(Status.WAITING)), eq(cursor.getTime()), eq(cursor.getId()), any()))
+                .thenReturn(List.of(BookingMapper.toBookingResponseDto(testBookingOne)));
+        List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByBookerIdAfter(testUserTwo.getId(),
+                "WAITING", cursor, 5);
+
+        assertEquals(bookingResponseDtoList.size(), 1);
+        assertEquals(bookingResponseDtoList.get(0).getId(), testBookingOne.getId());
+    }
+
+    @Test
+    public void findAllByOwnerIdAfter_whenPreviousPageWasLast_thenReturnEmptyList() {
+        Cursor cursor = Cursor.of(testBookingTwo.getStart(), testBookingTwo.getId());
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByOwnerId(anyLong(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of());
+
+        assertTrue(bookingService.findAllByOwnerIdAfter(testUser.getId(), "ALL", cursor, 5).isEmpty());
+        assertTrue(bookingService.findAllByBookerIdAfter(testUser.getId(), "ALL", cursor, 5).isEmpty());
+    }
+
+    @Test
+    public void findAllByBookerIdAfter_whenCursorWithoutStart_thenThrowValidationException() {
+        assertThrows(ValidationException.class,
+                () -> bookingService.findAllByBookerIdAfter(testUserTwo.getId(), "ALL", Cursor.of(1L), 5));
+        verify(bookingRepository, never()).findBookingResponseDtosByBookerId(anyLong(), any(),
+                any(), any(), any(), any());
     }
 
     @Test
     public void findAllByOwnerId_whenDataIsCorrectAndStateIsAll_thenReturnBooking() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
-        when(bookingRepository.findAllBookingsByOwnerId(anyLong(), any())).thenReturn(List.of(testBookingOne, testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByOwnerId(anyLong(), eq(List.of(Phase.values())),
+                eq(List.of(Status.values())), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByOwnerId(testUser.getId(),
                 "ALL", 0, 5);
 
@@ -439,15 +669,17 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.WAITING);
-        verify(userRepository, times(1)).findById(anyLong());
-        verify(bookingRepository, times(1)).findAllBookingsByOwnerId(anyLong(), any());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
+        verify(bookingRepository, times(1))
+                .findBookingResponseDtosByOwnerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByOwnerId_whenDataIsCorrectAndStateIsCurrent_thenReturnBooking() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
-        when(bookingRepository.findAllBookingsByOwnerIdWithStatusCurrent(anyLong(), any(), any()))
-                .thenReturn(List.of(testBookingOne, testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByOwnerId(anyLong(), eq(List.of(Phase.CURRENT)),
+                eq(List.of(Status.values())), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByOwnerId(testUser.getId(),
                 "CURRENT", 0, 5);
 
@@ -459,18 +691,19 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.WAITING);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1))
-                .findAllBookingsByOwnerIdWithStatusCurrent(anyLong(), any(), any());
+                .findBookingResponseDtosByOwnerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByOwnerId_whenDataIsCorrectAndStateIsPast_thenReturnBooking() {
         testBookingOne.setStart(LocalDateTime.now().minusDays(3));
         testBookingOne.setEnd(LocalDateTime.now().minusDays(1));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
-        when(bookingRepository.findAllBookingsByOwnerIdWithStatusPast(anyLong(), any(), any()))
-                .thenReturn(List.of(testBookingOne, testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByOwnerId(anyLong(), eq(List.of(Phase.PAST)),
+                eq(List.of(Status.values())), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByOwnerId(testUser.getId(),
                 "PAST", 0, 5);
 
@@ -482,18 +715,19 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.WAITING);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1))
-                .findAllBookingsByOwnerIdWithStatusPast(anyLong(), any(), any());
+                .findBookingResponseDtosByOwnerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByOwnerId_whenDataIsCorrectAndStateIsFuture_thenReturnBooking() {
         testBookingOne.setStart(LocalDateTime.now().plusDays(1));
         testBookingOne.setEnd(LocalDateTime.now().plusDays(3));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
-        when(bookingRepository.findAllBookingsByOwnerIdWithStatusFuture(anyLong(), any(), any()))
-                .thenReturn(List.of(testBookingOne, testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByOwnerId(anyLong(), eq(List.of(Phase.FUTURE)),
+                eq(List.of(Status.values())), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByOwnerId(testUser.getId(),
                 "FUTURE", 0, 5);
 
@@ -505,16 +739,17 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.WAITING);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1))
-                .findAllBookingsByOwnerIdWithStatusFuture(anyLong(), any(), any());
+                .findBookingResponseDtosByOwnerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByOwnerId_whenDataIsCorrectAndStatusIsWaiting_thenReturnBooking() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
-        when(bookingRepository.findAllBookingsByOwnerIdWithStatusWaiting(anyLong(), any(), any(), any()))
-                .thenReturn(List.of(testBookingOne, testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByOwnerId(anyLong(), eq(List.of(Phase.FUTURE)),
+                eq(List.of(Status.WAITING)), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByOwnerId(testUser.getId(),
                 "WAITING", 0, 5);
 
@@ -526,17 +761,18 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.WAITING);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1))
-                .findAllBookingsByOwnerIdWithStatusWaiting(anyLong(), any(), any(), any());
+                .findBookingResponseDtosByOwnerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByOwnerId_whenDataIsCorrectAndStatusIsRejected_thenReturnBooking() {
         testBookingOne.setStatus(Status.REJECTED);
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
-        when(bookingRepository.findAllBookingsByOwnerIdWithStatusRejected(anyLong(), any(), any()))
-                .thenReturn(List.of(testBookingOne, testBookingTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingResponseDtosByOwnerId(anyLong(), eq(List.of(Phase.values())),
+                eq(List.of(Status.REJECTED)), any(), any(), any()))
+                .thenReturn(BookingMapper.toBookingResponseDtoList(List.of(testBookingOne, testBookingTwo)));
         List<BookingResponseDto> bookingResponseDtoList = bookingService.findAllByOwnerId(testUser.getId(),
                 "REJECTED", 0, 5);
 
@@ -548,30 +784,30 @@ public class BookingServiceImplTest {
         assertEquals(bookingResponseDtoList.get(0).getItem(), ItemMapper.toItemDto(testItem));
         assertEquals(bookingResponseDtoList.get(0).getBooker(), UserMapper.toUserDto(testUserTwo));
         assertEquals(bookingResponseDtoList.get(0).getStatus(), Status.REJECTED);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(bookingRepository, times(1))
-                .findAllBookingsByOwnerIdWithStatusRejected(anyLong(), any(), any());
+                .findBookingResponseDtosByOwnerId(anyLong(), any(), any(), any(), any(), any());
     }
 
     @Test
     public void findAllByOwnerId_withUnknownState_ValidationExceptionThrown() {
         String state = "all";
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
         ValidationException exception = assertThrows(
                 ValidationException.class,
                 () -> bookingService.findAllByOwnerId(testUser.getId(), state, 0, 5));
         assertEquals("Unknown state: " + state, exception.getMessage());
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
     }
 
     @Test
     public void findAllByOwnerId_whenUserNotFound_thenNotFoundExceptionThrown() {
         long userId = 10;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userExistenceChecker.exists(userId)).thenReturn(false);
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> bookingService.findAllByOwnerId(userId, "ALL", 0, 5));
         assertEquals("Пользователь с id " + userId + " не найден в базе данных", exception.getMessage());
-        verify(userRepository, times(1)).findById(10L);
+        verify(userExistenceChecker, times(1)).exists(10L);
     }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.enums.Phase;
+import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверяет по статистике Hibernate, что списки бронирований вместе с преобразованием в DTO
+ * выполняются одним запросом, без дозагрузки вещей и пользователей на каждую строку.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class BookingStatementCountTest {
+    private static final int ITEMS = 4;
+    private static final int BOOKERS = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private BookingRepository bookingRepository;
+    Statistics statistics;
+    User owner;
+    User booker;
+    Long bookingId;
+
+    @BeforeEach
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        owner = entityManager.persist(new User(null, "Owner", "owner@mail.ru"));
+        User requester = entityManager.persist(new User(null, "Requester", "requester@mail.ru"));
+        ItemRequest itemRequest = entityManager.persist(new ItemRequest(null, "Нужна дрель", requester, now));
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = entityManager.persist(new Item(null, "Вещь " + i, "Описание " + i, true, owner,
+                    i % 2 == 0 ? itemRequest : null));
+            for (int j = 0; j < BOOKERS; j++) {
+                User user = entityManager.persist(new User(null, "Booker " + i + j, "booker" + i + j + "@mail.ru"));
+                if (booker == null) {
+                    booker = user;
+                }
+                Booking booking = entityManager.persist(new Booking(null, now.plusDays(i + j), now.plusDays(i + j + 1),
+                        item, j == 0 ? booker : user, Status.WAITING));
+                bookingId = booking.getId();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void findBookingResponseDtosByBookerId_whenProjectedToDto_thenSingleStatementWithoutEntities() {
+        List<BookingResponseDto> bookings = bookingRepository.findBookingResponseDtosByBookerId(booker.getId(),
+                List.of(Phase.values()), List.of(Status.values()), Cursor.MAX_TIME, Long.MAX_VALUE, PageRequest.of(0, 20));
+
+        assertEquals(ITEMS, bookings.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void findBookingResponseDtosByOwnerId_whenProjectedToDto_thenSingleStatementWithoutEntities() {
+        List<BookingResponseDto> bookings = bookingRepository.findBookingResponseDtosByOwnerId(owner.getId(),
+                List.of(Phase.values()), List.of(Status.values()), Cursor.MAX_TIME, Long.MAX_VALUE, PageRequest.of(0, 5));
+
+        assertEquals(5, bookings.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void findById_whenMappedToDto_thenSingleStatement() {
+        BookingResponseDto booking = BookingMapper.toBookingResponseDto(bookingRepository.findById(bookingId).get());
+
+        assertEquals(bookingId, booking.getId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
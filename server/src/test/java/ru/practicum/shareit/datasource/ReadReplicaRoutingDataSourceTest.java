@@ -0,0 +1,131 @@
+package ru.practicum.shareit.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Основная БД и реплика - две отдельные H2 в памяти, в каждой таблица node с именем базы.
+ */
+public class ReadReplicaRoutingDataSourceTest {
+    private static final String PRIMARY = "routing_primary";
+    private static final String REPLICA = "routing_replica";
+
+    DataSource primary;
+    DataSource replica;
+
+    @BeforeEach
+    public void setUp() {
+        primary = database(PRIMARY);
+        replica = database(REPLICA);
+    }
+
+    @Test
+    public void getConnection_whenReadOnlyTransaction_thenUseReplica() {
+        DataSource dataSource = routing(replica);
+
+        assertEquals(REPLICA, node(dataSource, true));
+        assertEquals(PRIMARY, node(dataSource, false));
+        assertEquals(PRIMARY, new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+    }
+
+    @Test
+    public void getConnection_whenReplicaIsDown_thenFallBackToPrimary() {
+        DataSource brokenReplica = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/~/nowhere", "test", "test");
+        ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource(primary,
+                List.of(brokenReplica, replica), Duration.ofMinutes(1));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        assertEquals(REPLICA, node(dataSource, true));
+        assertEquals(REPLICA, node(dataSource, true));
+        assertEquals(1, routingDataSource.availableReplicas());
+
+        DataSource onlyBroken = routing(brokenReplica);
+        assertEquals(PRIMARY, node(onlyBroken, true));
+    }
+
+    @Test
+    public void getConnection_whenPrimaryForced_thenReadFromPrimary() {
+        DataSource dataSource = routing(replica);
+
+        ReadReplicaRoutingDataSource.forcePrimary(true);
+        try {
+            assertEquals(PRIMARY, node(dataSource, true));
+        } finally {
+            ReadReplicaRoutingDataSource.forcePrimary(false);
+        }
+        assertEquals(REPLICA, node(dataSource, true));
+    }
+
+    @Test
+    public void isPinned_whenMaxLagPassed_thenReadFromReplicaAgain() {
+        ReplicaLagTracker tracker = new ReplicaLagTracker(Duration.ofMinutes(1));
+        tracker.pin(1L, 2L);
+
+        assertTrue(tracker.isPinned(1L));
+        assertTrue(tracker.isPinned(2L));
+        assertFalse(tracker.isPinned(3L));
+
+        ReplicaLagTracker noLag = new ReplicaLagTracker(Duration.ZERO);
+        noLag.pin(1L);
+        assertFalse(noLag.isPinned(1L));
+    }
+
+    @Test
+    public void hikariDataSource_whenHikariPropertiesSet_thenBoundToEachPool() {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl("jdbc:h2:mem:" + PRIMARY);
+        properties.setUsername("test");
+        properties.setPassword("test");
+        Binder binder = new Binder(new MapConfigurationPropertySource(Map.of(
+                "spring.datasource.hikari.maximum-pool-size", "7",
+                "spring.datasource.hikari.connection-timeout", "1500",
+                "spring.datasource.hikari.pool-name", "shareit")));
+
+        try (HikariDataSource replicaPool = ReadReplicaDataSourceConfig.hikariDataSource(properties, binder,
+                "jdbc:h2:mem:" + REPLICA, "replica-1")) {
+            assertEquals(7, replicaPool.getMaximumPoolSize());
+            assertEquals(1500, replicaPool.getConnectionTimeout());
+            assertEquals("replica-1", replicaPool.getPoolName());
+            assertEquals("jdbc:h2:mem:" + REPLICA, replicaPool.getJdbcUrl());
+            assertEquals("test", replicaPool.getUsername());
+        }
+    }
+
+    private DataSource routing(DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primary, List.of(replica),
+                Duration.ofMinutes(1)));
+    }
+
+    private String node(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "test", "test");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(32))");
+        jdbcTemplate.update("DELETE FROM node");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.InMemoryItemSearch;
+import ru.practicum.shareit.item.search.InvertedIndex;
+import ru.practicum.shareit.pagination.SearchCursor;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InMemoryItemSearchTest {
+    @Mock
+    ItemRepository itemRepository;
+    MeterRegistry meterRegistry;
+    InMemoryItemSearch itemSearch;
+    User owner;
+    Item drill;
+    Item screwdriver;
+    Item hiddenDrill;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        itemSearch = new InMemoryItemSearch(itemRepository, meterRegistry, DataSize.ofMegabytes(1));
+        owner = new User(1L, "Owner", "owner@mail.ru");
+        drill = new Item(1L, "Дрель", "Аккумуляторная дрель", true, owner, null);
+        screwdriver = new Item(2L, "Отвёртка", "Аккумуляторная отвёртка", true, owner, null);
+        hiddenDrill = new Item(3L, "Дрель ударная", "Недоступна", false, owner, null);
+    }
+
+    @Test
+    public void invertedIndex_whenPrefixQuery_thenIntersectWordsAndUnionPrefixes() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(5L, List.of("дрель", "аккумуляторная"));
+        index.put(3L, List.of("дрель", "ударная"));
+        index.put(9L, List.of("отвёртка", "аккумуляторная"));
+
+        assertArrayEquals(new long[]{3L, 5L}, index.find(List.of("дре")));
+        assertArrayEquals(new long[]{5L, 9L}, index.find(List.of("акк")));
+        assertArrayEquals(new long[]{5L}, index.find(List.of("акк", "дрель")));
+        assertArrayEquals(new long[0], index.find(List.of("пила")));
+
+        index.remove(5L);
+        assertArrayEquals(new long[]{3L}, index.find(List.of("дрель")));
+        assertEquals(4, index.tokenCount());
+        assertEquals(2, index.documentCount());
+    }
+
+    @Test
+    public void search_whenIndexBuilt_thenAnswerFromIndexAndLoadOnlyPage() {
+        when(itemRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(drill, screwdriver,
+                hiddenDrill)));
+        itemSearch.rebuild();
+        when(itemRepository.findAllById(List.of(2L))).thenReturn(List.of(screwdriver));
+
+        List<Item> firstPage = itemSearch.search("аккум", 0, 1);
+
+        assertEquals(List.of(screwdriver), firstPage);
+        verify(itemRepository, never()).search(anyString(), any());
+        assertEquals(2.0, meterRegistry.get("shareit.search.index.items").gauge().value());
+        assertEquals(1, meterRegistry.get("shareit.search.index.query").timer().count());
+    }
+
+    @Test
+    public void searchAfter_whenIndexBuilt_thenReturnItemsWithSmallerId() {
+        when(itemRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(drill, screwdriver)));
+        itemSearch.rebuild();
+        when(itemRepository.findAllById(List.of(1L))).thenReturn(List.of(drill));
+
+        assertEquals(List.of(drill), itemSearch.searchAfter("аккумуляторная", SearchCursor.of(0, 2L), 10));
+    }
+
+    @Test
+    public void search_whenWordsFoundInName_thenNameMatchesFirstLikeOtherEngines() {
+        Item battery = new Item(4L, "Аккумулятор", "Запасной", true, owner, null);
+        when(itemRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(drill, screwdriver,
+                battery)));
+        itemSearch.rebuild();
+        when(itemRepository.findAllById(List.of(4L, 2L, 1L))).thenReturn(List.of(drill, battery, screwdriver));
+        when(itemRepository.findAllById(List.of(2L))).thenReturn(List.of(screwdriver));
+
+        assertEquals(List.of(battery, screwdriver, drill), itemSearch.search("аккум", 0, 10));
+        assertEquals(SearchCursor.of(1, 4L), itemSearch.cursorOf("аккум", battery));
+        assertEquals(List.of(screwdriver), itemSearch.searchAfter("аккум", SearchCursor.of(1, 4L), 1));
+    }
+
+    @Test
+    public void searchAfter_whenCursorItemLeftIndex_thenContinueAfterItsPosition() {
+        when(itemRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(drill, screwdriver)));
+        itemSearch.rebuild();
+        when(itemRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(drill, screwdriver));
+
+        assertEquals(List.of(screwdriver, drill), itemSearch.searchAfter("аккум", SearchCursor.of(0, 3L), 10));
+    }
+
+    @Test
+    public void search_whenLoadedItemBecameUnavailable_thenPageFilledWithNextItems() {
+        when(itemRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(drill, screwdriver)));
+        itemSearch.rebuild();
+        Item hiddenScrewdriver = new Item(2L, "Отвёртка", "Аккумуляторная отвёртка", false, owner, null);
+        when(itemRepository.findAllById(List.of(2L))).thenReturn(List.of(hiddenScrewdriver));
+        when(itemRepository.findAllById(List.of(1L))).thenReturn(List.of(drill));
+
+        assertEquals(List.of(drill), itemSearch.search("аккум", 0, 1));
+    }
+
+    @Test
+    public void onItemSaved_whenItemBecameUnavailable_thenRemoveFromIndex() {
+        when(itemRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(drill)));
+        itemSearch.rebuild();
+        drill.setAvailable(false);
+        itemSearch.onItemSaved(drill);
+
+        assertTrue(itemSearch.search("дрель", 0, 10).isEmpty());
+        verify(itemRepository, never()).findAllById(any());
+    }
+
+    @Test
+    public void search_whenIndexNotBuilt_thenFallBackToRepositorySearch() {
+        when(itemRepository.search(anyString(), any())).thenReturn(List.of(drill));
+
+        assertEquals(List.of(drill), itemSearch.search("дрель", 0, 10));
+        verify(itemRepository, times(1)).search(anyString(), any());
+    }
+
+    @Test
+    public void rebuild_whenIndexExceedsMemoryBudget_thenFallBackToRepositorySearch() {
+        itemSearch = new InMemoryItemSearch(itemRepository, meterRegistry, DataSize.ofBytes(100));
+        when(itemRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(drill, screwdriver)));
+        when(itemRepository.search(anyString(), any())).thenReturn(List.of(drill));
+        itemSearch.rebuild();
+
+        assertEquals(List.of(drill), itemSearch.search("дрель", 0, 10));
+        verify(itemRepository, times(1)).search(anyString(), any());
+    }
+}
@@ -13,8 +13,12 @@ import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
 import ru.practicum.shareit.item.controller.ItemController;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.pagination.SearchCursor;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.item.dto.ItemResponseDtoWithBooking;
 
@@ -29,6 +33,7 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -310,6 +315,28 @@ public class ItemControllerTest {
         Assertions.assertEquals("Вещь с id" + 10 + "не найдена в базе данных", exception.getMessage());
     }
 
+    @Test
+    public void getAvailability_whenInvokedWithCorrectData_thenReturnStatusOk() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0, 30);
+        LocalDateTime to = from.plusDays(3);
+        ItemAvailabilityDto availability = new ItemAvailabilityDto(3L, true, from, to,
+                List.of(new AvailabilityIntervalDto(from, from.plusDays(1))),
+                List.of(new AvailabilityIntervalDto(from.plusDays(1), to)));
+        when(itemService.getAvailability(3L, from, to))
+                .thenReturn(availability);
+
+        mvc.perform(get("/items/3/availability")
+                        .param("from", "2030-01-01T10:00:30")
+                        .param("to", "2030-01-04T10:00:30")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(3L), Long.class))
+                .andExpect(jsonPath("$.busy", hasSize(1)))
+                .andExpect(jsonPath("$.busy[0].end", is("2030-01-02T10:00:30")))
+                .andExpect(jsonPath("$.free[0].start", is("2030-01-02T10:00:30")));
+    }
+
     @Test
     public void delete_whenInvokedWithCorrectData_thenReturnStatusOk() throws Exception {
         mvc.perform(delete("/items/1"))
@@ -359,6 +386,27 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[0].available", is(testItemTwoDto.getAvailable()), Boolean.class));
     }
 
+    @Test
+    public void findItemByName_whenInvokedWithCursor_thenReturnNextPageAndItsCursor() throws Exception {
+        when(itemService.findItemByNameAfter("вещь", SearchCursor.of(1, 5L), 1))
+                .thenReturn(List.of(testItemTwoDto));
+        when(itemService.getSearchCursor("вещь", testItemTwoDto))
+                .thenReturn(SearchCursor.of(0, testItemTwoDto.getId()));
+
+        mvc.perform(get("/items/search?text=вещь")
+                        .param("from", "0")
+                        .param("size", "1")
+                        .param("cursor", SearchCursor.of(1, 5L).encode())
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(1)))
+                .andExpect(jsonPath("$[0].id", is(testItemTwoDto.getId()), Long.class))
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER,
+                        SearchCursor.of(0, testItemTwoDto.getId()).encode()));
+    }
+
     @Test
     public void createComment_whenInvokedWithCorrectData_thenReturnStatusOk() throws Exception {
         when(itemService.createComment(1L, 3L, commentOne))
@@ -6,6 +6,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -109,6 +111,29 @@ public class ItemRepositoryTest {
         assertEquals(searchResult.size(), 0);
     }
 
+    @Test
+    public void search_whenMatchedByNameAndDescription_thenNameMatchGoesFirst() {
+        Item byDescription = itemRepository.save(new Item(3L, "Другая", "Тоже вещь", true, testUserThree, null));
+        List<Item> searchResult = itemRepository.search("вещь", pageRequest);
+        assertNotNull(searchResult);
+        assertEquals(searchResult, List.of(testItemTwo, byDescription));
+    }
+
+    @Test
+    public void searchAfter_whenDataIsCorrect_thenReturnItemsAfterCursor() {
+        Item byDescription = itemRepository.save(new Item(3L, "Другая", "Тоже вещь", true, testUserThree, null));
+        List<Item> searchResult = itemRepository.searchAfter("вещь", 1, testItemTwo.getId(), pageRequest);
+        assertNotNull(searchResult);
+        assertEquals(searchResult, List.of(byDescription));
+
+        List<Item> lastPage = itemRepository.searchAfter("вещь", 0, byDescription.getId(), pageRequest);
+        assertNotNull(lastPage);
+        assertEquals(lastPage.size(), 0);
+
+        //Вещи курсора в базе нет: страница всё равно продолжается от его позиции
+        assertEquals(List.of(testItemTwo, byDescription), itemRepository.searchAfter("вещь", 1, 100L, pageRequest));
+    }
+
     @Test
     public void findItemsByIdAndOwnerId_whenDataIsCorrect_thenReturnItem() {
         TypedQuery<Item> query = entityManager.getEntityManager()
@@ -132,6 +157,15 @@ public class ItemRepositoryTest {
         assertEquals(items.get(0), testItem);
     }
 
+    @Test
+    public void findAllByOwnerIdAndIdGreaterThanOrderByIdAsc_whenDataIsCorrect_thenReturnItemsAfterCursor() {
+        Item third = itemRepository.save(new Item(3L, "Третья", "Вещь", true, testUser, null));
+        List<Item> items = itemRepository.findAllByOwnerIdAndIdGreaterThanOrderByIdAsc(testUser.getId(),
+                testItem.getId(), pageRequest);
+        assertNotNull(items);
+        assertEquals(items, List.of(third));
+    }
+
     @Test
     public void findAllByOwnerId_whenUserWithoutItems_thenReturnEmptyList() {
         List<Item> items = itemRepository.findAllByOwnerId(testUserThree.getId(), pageRequest);
@@ -140,17 +174,15 @@ public class ItemRepositoryTest {
     }
 
     @Test
-    public void findAllByItemRequest_whenDataIsCorrect_thenReturnItemList() {
-        List<Item> items = itemRepository.findAllByItemRequest(itemRequest);
-        assertNotNull(items);
-        assertEquals(items.size(), 1);
-        assertEquals(items.get(0), testItem);
+    public void findItemDtosByRequestIdIn_whenDataIsCorrect_thenReturnItemsOfRequests() {
+        List<ItemDto> items = itemRepository.findItemDtosByRequestIdIn(List.of(itemRequest.getId(),
+                itemRequestTwo.getId()));
+        assertEquals(List.of(ItemMapper.toItemDto(testItem)), items);
+        assertEquals(itemRequest.getId(), items.get(0).getRequestId());
     }
 
     @Test
-    public void findAllByItemRequest_whenNotFoundItemsByRequest_thenReturnEmptyList() {
-        List<Item> items = itemRepository.findAllByItemRequest(itemRequestTwo);
-        assertNotNull(items);
-        assertEquals(items.size(), 0);
+    public void findItemDtosByRequestIdIn_whenNotFoundItemsByRequest_thenReturnEmptyList() {
+        assertEquals(List.of(), itemRepository.findItemDtosByRequestIdIn(List.of(itemRequestTwo.getId())));
     }
-}
\ No newline at end of file
+}
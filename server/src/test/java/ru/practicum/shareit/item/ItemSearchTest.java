@@ -0,0 +1,76 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.FullTextItemSearch;
+import ru.practicum.shareit.item.search.LikeItemSearch;
+import ru.practicum.shareit.pagination.SearchCursor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchTest {
+    @Mock
+    ItemRepository itemRepository;
+    @InjectMocks
+    LikeItemSearch likeItemSearch;
+    @InjectMocks
+    FullTextItemSearch fullTextItemSearch;
+
+    @Test
+    public void toTsQuery_whenSeveralWords_thenPrefixQueryJoinedWithAnd() {
+        assertEquals("дрель:* & акк:*", FullTextItemSearch.toTsQuery("Дрель  акк"));
+    }
+
+    @Test
+    public void toTsQuery_whenTextContainsOperators_thenOperatorsAreStripped() {
+        assertEquals("a:* & b:* & c:*", FullTextItemSearch.toTsQuery("a & !b | (c):*"));
+        assertEquals("", FullTextItemSearch.toTsQuery("&|!"));
+    }
+
+    @Test
+    public void fullTextSearch_whenNoWords_thenRepositoryNotCalled() {
+        assertTrue(fullTextItemSearch.search("!!!", 0, 10).isEmpty());
+        assertTrue(fullTextItemSearch.searchAfter("!!!", SearchCursor.of(0, 1L), 10).isEmpty());
+        verify(itemRepository, never()).fullTextSearch(anyString(), anyInt(), anyInt());
+        verify(itemRepository, never()).fullTextSearchAfter(anyString(), anyDouble(), any(), anyInt());
+    }
+
+    @Test
+    public void fullTextSearch_whenDataIsCorrect_thenCallRepositoryWithTsQuery() {
+        when(itemRepository.fullTextSearch("дрель:*", 10, 5)).thenReturn(List.of());
+        fullTextItemSearch.search("Дрель", 10, 5);
+        verify(itemRepository, times(1)).fullTextSearch("дрель:*", 10, 5);
+    }
+
+    @Test
+    public void likeSearch_whenDataIsCorrect_thenCallRepositoryWithPage() {
+        when(itemRepository.search("дрель", PageRequest.of(2, 5))).thenReturn(List.of());
+        likeItemSearch.search("дрель", 10, 5);
+        verify(itemRepository, times(1)).search("дрель", PageRequest.of(2, 5));
+    }
+
+    @Test
+    public void likeSearchAfter_whenCursorGiven_thenRankAndIdPassedWithoutLookup() {
+        Item drill = new Item(7L, "Дрель", "Ударная", true, null, null);
+        assertEquals(SearchCursor.of(1, 7L), likeItemSearch.cursorOf("дрель", drill));
+        assertEquals(SearchCursor.of(0, 7L), likeItemSearch.cursorOf("ударная", drill));
+
+        when(itemRepository.searchAfter("дрель", 1, 7L, PageRequest.of(0, 5))).thenReturn(List.of());
+        likeItemSearch.searchAfter("дрель", SearchCursor.of(1, 7L), 5);
+        verify(itemRepository, times(1)).searchAfter("дрель", 1, 7L, PageRequest.of(0, 5));
+        verify(itemRepository, never()).findById(anyLong());
+    }
+}
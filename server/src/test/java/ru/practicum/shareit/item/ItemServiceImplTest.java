@@ -7,24 +7,33 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.ShortBookingDtoWithItemId;
 import ru.practicum.shareit.booking.enums.Status;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.OperationAccessException;
+import ru.practicum.shareit.exceptions.ValidationException;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
 import ru.practicum.shareit.item.comment.mapper.CommentMapper;
 import ru.practicum.shareit.item.comment.model.Comment;
 import ru.practicum.shareit.item.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDtoWithBooking;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearch;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.pagination.SearchCursor;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceChecker;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -45,9 +54,15 @@ public class ItemServiceImplTest {
     @Mock
     UserRepository userRepository;
     @Mock
+    UserExistenceChecker userExistenceChecker;
+    @Mock
     BookingRepository bookingRepository;
     @Mock
     CommentRepository commentRepository;
+    @Mock
+    ItemSearch itemSearch;
+    @Mock
+    BookingIntervalIndex bookingIntervalIndex;
     User testUser;
     User testUserTwo;
     Item testItem;
@@ -86,6 +101,7 @@ public class ItemServiceImplTest {
         assertEquals(itemDto.getAvailable(), newItemDto.getAvailable());
         verify(userRepository, times(1)).findById(anyLong());
         verify(itemRepository, times(1)).save(testItem);
+        verify(itemSearch, times(1)).onItemSaved(testItem);
     }
 
     @Test
@@ -156,10 +172,11 @@ public class ItemServiceImplTest {
 
     @Test
     public void findAll_whenDataIsCorrect_thenReturnAllItems() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUser));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
         when(itemRepository.findAllByOwnerId(anyLong(), any())).thenReturn(List.of(testItem));
-        when(commentRepository.findAllByItemId(anyLong())).thenReturn(List.of(commentOne));
-        when(bookingRepository.findAllBookingsItem(anyLong())).thenReturn(List.of(lastBooking, nextBooking));
+        when(commentRepository.findAllByItemIdIn(anyList())).thenReturn(List.of(commentOne));
+        when(bookingRepository.findLastAndNextBookingsForItems(anyList(), any(), any(LocalDateTime.class)))
+                .thenReturn(List.of(toShortBookingDtoWithItemId(lastBooking), toShortBookingDtoWithItemId(nextBooking)));
         List<ItemResponseDtoWithBooking> itemList = itemService.findAll(1L, 0, 5);
 
         assertNotNull(itemList);
@@ -170,30 +187,35 @@ public class ItemServiceImplTest {
         assertEquals(itemList.get(0).getLastBooking().getId(), lastBooking.getId());
         assertEquals(itemList.get(0).getNextBooking().getId(), nextBooking.getId());
         assertEquals(itemList.get(0).getComments().get(0).getId(), commentOne.getId());
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(itemRepository, times(1)).findAllByOwnerId(anyLong(), any());
-        verify(commentRepository, times(1)).findAllByItemId(anyLong());
-        verify(bookingRepository, times(1)).findAllBookingsItem(anyLong());
+        verify(commentRepository, times(1)).findAllByItemIdIn(anyList());
+        verify(bookingRepository, times(1)).findLastAndNextBookingsForItems(anyList(), any(), any(LocalDateTime.class));
     }
 
     @Test
     public void findAll_whenItemListEmpty_thenReturnEmptyItemList() {
         User user = new User(3L, "user", "user@user.com");
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
         when(itemRepository.findAllByOwnerId(anyLong(), any())).thenReturn(new ArrayList<>());
         List<ItemResponseDtoWithBooking> itemDtoList = itemService.findAll(user.getId(), 0, 2);
 
         assertNotNull(itemDtoList);
         assertEquals(itemDtoList.size(), 0);
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
         verify(itemRepository, times(1)).findAllByOwnerId(anyLong(), any());
+        verify(commentRepository, never()).findAllByItemIdIn(anyList());
+        verify(bookingRepository, never()).findLastAndNextBookingsForItems(anyList(), any(), any());
     }
 
     @Test
     public void getItem_whenDataIsCorrect_thenReturnItem() {
         when(itemRepository.findById(1L)).thenReturn(Optional.ofNullable(testItem));
         when(commentRepository.findAllByItemId(anyLong())).thenReturn(List.of(commentOne));
-        when(bookingRepository.findAllBookingsItem(anyLong())).thenReturn(List.of(lastBooking, nextBooking));
+        when(bookingRepository.findLastBooking(anyLong(), any(), any(LocalDateTime.class), any()))
+                .thenReturn(List.of(BookingMapper.toShortBookingDto(lastBooking)));
+        when(bookingRepository.findNextBooking(anyLong(), any(), any(LocalDateTime.class), any()))
+                .thenReturn(List.of(BookingMapper.toShortBookingDto(nextBooking)));
         ItemResponseDtoWithBooking item = itemService.getItem(1L, 1L);
 
         assertNotNull(item);
@@ -205,7 +227,8 @@ public class ItemServiceImplTest {
         assertEquals(item.getComments().get(0).getId(), commentOne.getId());
         verify(itemRepository, times(1)).findById(1L);
         verify(commentRepository, times(1)).findAllByItemId(anyLong());
-        verify(bookingRepository, times(1)).findAllBookingsItem(anyLong());
+        verify(bookingRepository, times(1)).findLastBooking(anyLong(), any(), any(LocalDateTime.class), any());
+        verify(bookingRepository, times(1)).findNextBooking(anyLong(), any(), any(LocalDateTime.class), any());
     }
 
     @Test
@@ -223,12 +246,14 @@ public class ItemServiceImplTest {
     public void delete_whenDataIsCorrect_thenDeleteItem() {
         itemService.delete(1L);
         verify(itemRepository, times(1)).deleteById(1L);
+        verify(bookingIntervalIndex, times(1)).evict(1L);
+        verify(itemSearch, times(1)).onItemDeleted(1L);
     }
 
     @Test
     public void findItemByName_whenFindByName_thenFindItemList() {
         ItemDto itemDto = ItemMapper.toItemDto(testItemTwo);
-        when(itemRepository.search(anyString(), any())).thenReturn(List.of(testItemTwo));
+        when(itemSearch.search(anyString(), anyInt(), anyInt())).thenReturn(List.of(testItemTwo));
         List<ItemDto> itemDtoList = itemService.findItemByName("Вещь", 0, 5);
 
         assertNotNull(itemDtoList);
@@ -237,13 +262,13 @@ public class ItemServiceImplTest {
         assertEquals(itemDtoList.get(0).getName(), itemDto.getName());
         assertEquals(itemDtoList.get(0).getDescription(), itemDto.getDescription());
         assertEquals(itemDtoList.get(0).getAvailable(), itemDto.getAvailable());
-        verify(itemRepository, times(1)).search(anyString(), any());
+        verify(itemSearch, times(1)).search(anyString(), anyInt(), anyInt());
     }
 
     @Test
     public void findItemByName_whenFindByDescription_thenFindItemList() {
         ItemDto itemDto = ItemMapper.toItemDto(testItemTwo);
-        when(itemRepository.search(anyString(), any())).thenReturn(List.of(testItemTwo));
+        when(itemSearch.search(anyString(), anyInt(), anyInt())).thenReturn(List.of(testItemTwo));
         List<ItemDto> itemDtoList = itemService.findItemByName("Хорошая", 0, 5);
 
         assertNotNull(itemDtoList);
@@ -252,17 +277,37 @@ public class ItemServiceImplTest {
         assertEquals(itemDtoList.get(0).getName(), itemDto.getName());
         assertEquals(itemDtoList.get(0).getDescription(), itemDto.getDescription());
         assertEquals(itemDtoList.get(0).getAvailable(), itemDto.getAvailable());
-        verify(itemRepository, times(1)).search(anyString(), any());
+        verify(itemSearch, times(1)).search(anyString(), anyInt(), anyInt());
     }
 
     @Test
     public void findItemByName_whenItemListEmpty_thenReturnEmptyItemList() {
-        when(itemRepository.search(anyString(), any())).thenReturn(new ArrayList<>());
+        when(itemSearch.search(anyString(), anyInt(), anyInt())).thenReturn(new ArrayList<>());
         List<ItemDto> itemDtoList = itemService.findItemByName("текст", 0, 5);
 
         assertNotNull(itemDtoList);
         assertEquals(itemDtoList.size(), 0);
-        verify(itemRepository, times(1)).search(anyString(), any());
+        verify(itemSearch, times(1)).search(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void findItemByNameAfter_whenDataIsCorrect_thenFindNextPage() {
+        when(itemSearch.searchAfter("Вещь", SearchCursor.of(1, 5L), 5)).thenReturn(List.of(testItemTwo));
+        List<ItemDto> itemDtoList = itemService.findItemByNameAfter("Вещь", SearchCursor.of(1, 5L), 5);
+
+        assertNotNull(itemDtoList);
+        assertEquals(itemDtoList.size(), 1);
+        assertEquals(itemDtoList.get(0).getId(), testItemTwo.getId());
+        verify(itemSearch, times(1)).searchAfter("Вещь", SearchCursor.of(1, 5L), 5);
+    }
+
+    @Test
+    public void findItemByName_whenTextIsBlank_thenReturnEmptyListWithoutSearch() {
+        List<ItemDto> itemDtoList = itemService.findItemByName(" ", 0, 5);
+
+        assertNotNull(itemDtoList);
+        assertEquals(itemDtoList.size(), 0);
+        verify(itemSearch, never()).search(anyString(), anyInt(), anyInt());
     }
 
     @Test
@@ -287,4 +332,50 @@ public class ItemServiceImplTest {
                 .findFirstByBookerAndItemAndEndIsBeforeOrderByEndDesc(any(), any(), any(LocalDateTime.class));
         verify(commentRepository, times(1)).save(any(Comment.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getAvailability_whenItemHasApprovedBookings_thenFreeIntervalsBetweenThem() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        LocalDateTime to = from.plusDays(10);
+        List<AvailabilityIntervalDto> busy = List.of(
+                new AvailabilityIntervalDto(from, from.plusDays(2)),
+                new AvailabilityIntervalDto(from.plusDays(4), from.plusDays(5)));
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
+        when(bookingIntervalIndex.findBusy(1L, from, to)).thenReturn(busy);
+
+        ItemAvailabilityDto availability = itemService.getAvailability(1L, from, to);
+
+        assertEquals(busy, availability.getBusy());
+        assertEquals(List.of(new AvailabilityIntervalDto(from.plusDays(2), from.plusDays(4)),
+                new AvailabilityIntervalDto(from.plusDays(5), to)), availability.getFree());
+        verify(bookingRepository, never()).findBookingIntervals(any(), any(), any());
+    }
+
+    @Test
+    public void getAvailability_whenItemNotAvailable_thenNoFreeIntervals() {
+        testItem.setAvailable(false);
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        when(itemRepository.findById(1L)).thenReturn(Optional.of(testItem));
+        when(bookingIntervalIndex.findBusy(1L, from, from.plusDays(1))).thenReturn(List.of());
+
+        ItemAvailabilityDto availability = itemService.getAvailability(1L, from, from.plusDays(1));
+
+        assertFalse(availability.getAvailable());
+        assertTrue(availability.getFree().isEmpty());
+    }
+
+    @Test
+    public void getAvailability_whenPeriodIsEmpty_thenValidationExceptionThrown() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> itemService.getAvailability(1L, from, from));
+        assertEquals("Начало периода должно быть раньше его окончания", exception.getMessage());
+        verify(itemRepository, never()).findById(anyLong());
+    }
+
+    private ShortBookingDtoWithItemId toShortBookingDtoWithItemId(Booking booking) {
+        return new ShortBookingDtoWithItemId(booking.getId(), booking.getItem().getId(), booking.getBooker().getId(),
+                booking.getStart(), booking.getEnd());
+    }
+}
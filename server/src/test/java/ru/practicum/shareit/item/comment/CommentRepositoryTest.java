@@ -66,4 +66,20 @@ public class CommentRepositoryTest {
         assertNotNull(comments);
         assertEquals(comments.size(), 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findAllByItemIdIn_whenDataIsCorrect_thenReturnCommentsForAllItems() {
+        List<Comment> comments = commentRepository.findAllByItemIdIn(List.of(testItem.getId(), testItemTwo.getId(),
+                testItemThree.getId()));
+        assertNotNull(comments);
+        assertEquals(comments.size(), 2);
+        assertEquals(comments.get(0).getAuthor().getName(), testUserTwo.getName());
+    }
+
+    @Test
+    public void findAllByItemIdIn_whenItemsWithoutComments_thenReturnEmptyList() {
+        List<Comment> comments = commentRepository.findAllByItemIdIn(List.of(testItemThree.getId()));
+        assertNotNull(comments);
+        assertEquals(comments.size(), 0);
+    }
+}
@@ -6,10 +6,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.dto.ItemRequestDtoWithItems;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
@@ -18,6 +22,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 public class ItemRequestRepositoryTest {
@@ -43,10 +48,10 @@ public class ItemRequestRepositoryTest {
         testUser = userRepository.save(new User(1L, "Test_User", "mail@somemail.ru"));
         testUserTwo = userRepository.save(new User(2L, "Test_User 2", "user@somemail.ru"));
         testUserThree = userRepository.save(new User(3L, "Test_User 3", "xxx@somemail.ru"));
-        itemRequest = itemRequestRepository.save(new ItemRequest(1L, "Test_Description", testUserTwo,
-                LocalDateTime.now().plusHours(3)));
-        itemRequestTwo = itemRequestRepository.save(new ItemRequest(2L, "Test_Description2", testUser,
-                LocalDateTime.now().minusHours(1)));
+        itemRequest = withCreated(itemRequestRepository.save(new ItemRequest(1L, "Test_Description", testUserTwo,
+                null)), LocalDateTime.now().plusHours(3));
+        itemRequestTwo = withCreated(itemRequestRepository.save(new ItemRequest(2L, "Test_Description2", testUser,
+                null)), LocalDateTime.now().minusHours(1));
         testItem = itemRepository.save(new Item(1L, "Test_Name", "Test_Description", true,
                 testUser, itemRequest));
         testItemTwo = itemRepository.save(new Item(2L, "Вещь", "Хорошая", true,
@@ -59,33 +64,50 @@ public class ItemRequestRepositoryTest {
     }
 
     @Test
-    public void findAllByRequesterIdOrderByCreatedDesc_whenDataIsCorrect_thenReturnItemRequestList() {
-        List<ItemRequest> requests = itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(testUser.getId());
-        assertNotNull(requests);
-        assertEquals(requests.size(), 1);
-        assertEquals(requests.get(0), itemRequestTwo);
+    public void findItemRequestDtosByRequesterIdIsNot_whenPagingWithCursor_thenReturnRequestsCreatedLater() {
+        List<ItemRequestDtoWithItems> firstPage = itemRequestRepository.findItemRequestDtosByRequesterIdIsNot(
+                testUserThree.getId(), Cursor.MIN_TIME, Long.MIN_VALUE, PageRequest.of(0, 1));
+        assertEquals(1, firstPage.size());
+        assertEquals(itemRequestTwo.getId(), firstPage.get(0).getId());
+        assertEquals(UserMapper.toUserDto(testUser), firstPage.get(0).getRequester());
+        assertEquals(0, firstPage.get(0).getItems().size());
+
+        List<ItemRequestDtoWithItems> requests = itemRequestRepository.findItemRequestDtosByRequesterIdIsNot(
+                testUserThree.getId(), itemRequestTwo.getCreated(), itemRequestTwo.getId(), pageRequest);
+        assertEquals(1, requests.size());
+        assertEquals(itemRequest.getId(), requests.get(0).getId());
+
+        List<ItemRequestDtoWithItems> lastPage = itemRequestRepository.findItemRequestDtosByRequesterIdIsNot(
+                testUserThree.getId(), itemRequest.getCreated(), itemRequest.getId(), pageRequest);
+        assertEquals(0, lastPage.size());
     }
 
     @Test
-    public void findAllByRequesterIdOrderByCreatedDesc_whenDataIsCorrect_thenReturnEmptyList() {
-        List<ItemRequest> requests = itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(testUserThree.getId());
-        assertNotNull(requests);
-        assertEquals(requests.size(), 0);
+    public void findItemRequestDtosByRequesterId_whenDataIsCorrect_thenReturnOwnRequests() {
+        List<ItemRequestDtoWithItems> requests = itemRequestRepository.findItemRequestDtosByRequesterId(
+                testUserTwo.getId());
+        assertEquals(1, requests.size());
+        assertEquals(itemRequest.getId(), requests.get(0).getId());
+        assertEquals(itemRequest.getDescription(), requests.get(0).getDescription());
     }
 
     @Test
-    public void findAllByRequesterIdIsNot_whenDataIsCorrect_thenReturnItemRequestList() {
-        List<ItemRequest> requests = itemRequestRepository.findAllByRequesterIdIsNot(testUser.getId(), pageRequest);
-        assertNotNull(requests);
-        assertEquals(requests.size(), 1);
-        assertEquals(requests.get(0), itemRequest);
+    public void findItemRequestDtoById_whenDataIsCorrect_thenReturnRequestAndItsItems() {
+        ItemRequestDtoWithItems request = itemRequestRepository.findItemRequestDtoById(itemRequest.getId()).get();
+        assertEquals(UserMapper.toUserDto(testUserTwo), request.getRequester());
+        assertEquals(List.of(ItemMapper.toItemDto(testItem)),
+                itemRepository.findItemDtosByRequestIdIn(List.of(request.getId())));
+        assertTrue(itemRequestRepository.findItemRequestDtoById(100L).isEmpty());
     }
 
-    @Test
-    public void findAllByRequesterIdIsNot_whenDataIsCorrect_thenReturnEmptyList() {
-        List<ItemRequest> requests = itemRequestRepository.findAllByRequesterIdIsNot(testUserThree.getId(), pageRequest);
-        assertNotNull(requests);
-        assertEquals(requests.size(), 2);
-        assertEquals(requests, List.of(itemRequest, itemRequestTwo));
+    //created заполняет @CreationTimestamp при вставке, поэтому нужное время проставляется отдельным запросом:
+    private ItemRequest withCreated(ItemRequest request, LocalDateTime created) {
+        entityManager.getEntityManager()
+                .createQuery("UPDATE ItemRequest r SET r.created = :created WHERE r.id = :id")
+                .setParameter("created", created)
+                .setParameter("id", request.getId())
+                .executeUpdate();
+        entityManager.refresh(request);
+        return request;
     }
-}
\ No newline at end of file
+}
@@ -8,6 +8,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
@@ -20,8 +21,10 @@ import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceChecker;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,6 +43,8 @@ public class ItemRequestServiceImplTest {
     ItemRepository itemRepository;
     @Mock
     UserRepository userRepository;
+    @Mock
+    UserExistenceChecker userExistenceChecker;
     User testUser;
     User testUserTwo;
     Item testItem;
@@ -98,9 +103,12 @@ public class ItemRequestServiceImplTest {
 
     @Test
     public void findAllByUserId_whenDataIsCorrect_thenReturnListItemRequestDtoWithItems() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
-        when(itemRequestRepository.findAllByRequesterIdOrderByCreatedDesc(anyLong())).thenReturn(List.of(itemRequestOne));
-        when(itemRepository.findAllByItemRequest(any())).thenReturn(List.of(testItem));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(itemRequestRepository.findItemRequestDtosByRequesterId(anyLong()))
+                .thenReturn(List.of(ItemRequestMapper.toItemRequestDtoWithItems(itemRequestOne, new ArrayList<>())));
+        ItemDto itemDto = ItemMapper.toItemDto(testItem);
+        itemDto.setRequestId(itemRequestOne.getId());
+        when(itemRepository.findItemDtosByRequestIdIn(List.of(itemRequestOne.getId()))).thenReturn(List.of(itemDto));
         List<ItemRequestDtoWithItems> requestDtoWithItemsList = itemRequestService.findAllByUserId(testUserTwo.getId());
 
         assertNotNull(requestDtoWithItemsList);
@@ -109,28 +117,31 @@ public class ItemRequestServiceImplTest {
         assertEquals(requestDtoWithItemsList.get(0).getDescription(), itemRequestOne.getDescription());
         assertEquals(requestDtoWithItemsList.get(0).getRequester(), UserMapper.toUserDto(testUserTwo));
         assertEquals(requestDtoWithItemsList.get(0).getCreated(), itemRequestOne.getCreated());
-        assertEquals(requestDtoWithItemsList.get(0).getItems(), List.of(ItemMapper.toItemDto(testItem)));
-        verify(userRepository, times(1)).findById(anyLong());
-        verify(itemRequestRepository, times(1)).findAllByRequesterIdOrderByCreatedDesc(anyLong());
-        verify(itemRepository, times(1)).findAllByItemRequest(any());
+        assertEquals(requestDtoWithItemsList.get(0).getItems(), List.of(itemDto));
+        verify(userExistenceChecker, times(1)).exists(anyLong());
+        verify(itemRequestRepository, times(1)).findItemRequestDtosByRequesterId(anyLong());
+        verify(itemRepository, times(1)).findItemDtosByRequestIdIn(any());
     }
 
     @Test
     public void findAllByUserId_whenUserNotFound_thenNotFoundExceptionThrown() {
         long userId = 10;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userExistenceChecker.exists(userId)).thenReturn(false);
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> itemRequestService.findAllByUserId(userId));
         assertEquals("Пользователь с id " + userId + " не найден в базе данных", exception.getMessage());
-        verify(userRepository, times(1)).findById(userId);
+        verify(userExistenceChecker, times(1)).exists(userId);
     }
 
     @Test
     public void findAll_whenDataIsCorrect_thenReturnListItemRequestDtoWithItems() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
-        when(itemRequestRepository.findAllByRequesterIdIsNot(anyLong(), any())).thenReturn(List.of(itemRequestTwo));
-        when(itemRepository.findAllByItemRequest(any())).thenReturn(List.of(testItemTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(itemRequestRepository.findItemRequestDtosByRequesterIdIsNot(anyLong(), any(), any(), any()))
+                .thenReturn(List.of(ItemRequestMapper.toItemRequestDtoWithItems(itemRequestTwo, new ArrayList<>())));
+        ItemDto itemDto = ItemMapper.toItemDto(testItemTwo);
+        itemDto.setRequestId(itemRequestTwo.getId());
+        when(itemRepository.findItemDtosByRequestIdIn(List.of(itemRequestTwo.getId()))).thenReturn(List.of(itemDto));
         List<ItemRequestDtoWithItems> requestDtoWithItemsList = itemRequestService.findAll(testUserTwo.getId(), 0, 5);
 
         assertNotNull(requestDtoWithItemsList);
@@ -139,28 +150,31 @@ public class ItemRequestServiceImplTest {
         assertEquals(requestDtoWithItemsList.get(0).getDescription(), itemRequestTwo.getDescription());
         assertEquals(requestDtoWithItemsList.get(0).getRequester(), UserMapper.toUserDto(testUser));
         assertEquals(requestDtoWithItemsList.get(0).getCreated(), itemRequestTwo.getCreated());
-        assertEquals(requestDtoWithItemsList.get(0).getItems(), List.of(ItemMapper.toItemDto(testItemTwo)));
-        verify(userRepository, times(1)).findById(anyLong());
-        verify(itemRequestRepository, times(1)).findAllByRequesterIdIsNot(anyLong(), any());
-        verify(itemRepository, times(1)).findAllByItemRequest(any());
+        assertEquals(requestDtoWithItemsList.get(0).getItems(), List.of(itemDto));
+        verify(userExistenceChecker, times(1)).exists(anyLong());
+        verify(itemRequestRepository, times(1)).findItemRequestDtosByRequesterIdIsNot(anyLong(), any(), any(), any());
+        verify(itemRepository, times(1)).findItemDtosByRequestIdIn(any());
     }
 
     @Test
     public void findAll_whenUserNotFound_thenNotFoundExceptionThrown() {
         long userId = 10;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userExistenceChecker.exists(userId)).thenReturn(false);
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> itemRequestService.findAll(userId, 0, 5));
         assertEquals("Пользователь с id " + userId + " не найден в базе данных", exception.getMessage());
-        verify(userRepository, times(1)).findById(userId);
+        verify(userExistenceChecker, times(1)).exists(userId);
     }
 
     @Test
     public void getItemRequestById_whenDataIsCorrect_thenReturnItemRequest() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
-        when(itemRequestRepository.findById(anyLong())).thenReturn(Optional.ofNullable(itemRequestOne));
-        when(itemRepository.findAllByItemRequest(any())).thenReturn(List.of(testItem));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
+        when(itemRequestRepository.findItemRequestDtoById(anyLong()))
+                .thenReturn(Optional.of(ItemRequestMapper.toItemRequestDtoWithItems(itemRequestOne, new ArrayList<>())));
+        ItemDto itemDto = ItemMapper.toItemDto(testItem);
+        itemDto.setRequestId(itemRequestOne.getId());
+        when(itemRepository.findItemDtosByRequestIdIn(List.of(itemRequestOne.getId()))).thenReturn(List.of(itemDto));
         ItemRequestDtoWithItems itemRequestDtoWithItems = itemRequestService.getItemRequestById(testUserTwo.getId(), itemRequestOne.getId());
 
         assertNotNull(itemRequestDtoWithItems);
@@ -168,31 +182,31 @@ public class ItemRequestServiceImplTest {
         assertEquals(itemRequestDtoWithItems.getDescription(), itemRequestOne.getDescription());
         assertEquals(itemRequestDtoWithItems.getRequester(), UserMapper.toUserDto(testUserTwo));
         assertEquals(itemRequestDtoWithItems.getCreated(), itemRequestOne.getCreated());
-        assertEquals(itemRequestDtoWithItems.getItems(), List.of(ItemMapper.toItemDto(testItem)));
-        verify(userRepository, times(1)).findById(anyLong());
-        verify(itemRequestRepository, times(1)).findById(anyLong());
-        verify(itemRepository, times(1)).findAllByItemRequest(any());
+        assertEquals(itemRequestDtoWithItems.getItems(), List.of(itemDto));
+        verify(userExistenceChecker, times(1)).exists(anyLong());
+        verify(itemRequestRepository, times(1)).findItemRequestDtoById(anyLong());
+        verify(itemRepository, times(1)).findItemDtosByRequestIdIn(any());
     }
 
     @Test
     public void getItemRequestById_whenUserNotFound_thenNotFoundExceptionThrown() {
         long userId = 10;
-        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userExistenceChecker.exists(userId)).thenReturn(false);
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> itemRequestService.getItemRequestById(userId, itemRequestOne.getId()));
         assertEquals("Пользователь с id " + userId + " не найден в базе данных", exception.getMessage());
-        verify(userRepository, times(1)).findById(userId);
+        verify(userExistenceChecker, times(1)).exists(userId);
     }
 
     @Test
     public void getItemRequestById_whenItemRequestNotFound_thenNotFoundExceptionThrown() {
         long requestId = 10;
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(testUserTwo));
+        when(userExistenceChecker.exists(anyLong())).thenReturn(true);
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> itemRequestService.getItemRequestById(testUserTwo.getId(), requestId));
         assertEquals("Запрос с id " + requestId + " не найден в базе данных", exception.getMessage());
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userExistenceChecker, times(1)).exists(anyLong());
     }
 }
\ No newline at end of file
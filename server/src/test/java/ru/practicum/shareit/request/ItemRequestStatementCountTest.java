@@ -0,0 +1,109 @@
+package ru.practicum.shareit.request;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.dto.ItemRequestDtoWithItems;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceChecker;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сравнивает загрузку вещей для страницы запросов одним запросом (findItemDtosByRequestIdIn)
+ * с загрузкой по запросу на каждый элемент страницы. Время обоих вариантов пишется в лог.
+ */
+@Slf4j
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ItemRequestStatementCountTest {
+    private static final int ITEMS_PER_REQUEST = 2;
+    private static final int RUNS = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 1000})
+    public void findAll_whenPageOfRequests_thenItemsLoadedInOneStatement(int requests) {
+        LocalDateTime now = LocalDateTime.now();
+        User requester = entityManager.persist(new User(null, "Requester", "requester@mail.ru"));
+        User owner = entityManager.persist(new User(null, "Owner", "owner@mail.ru"));
+        for (int i = 0; i < requests; i++) {
+            ItemRequest itemRequest = entityManager.persist(new ItemRequest(null, "Запрос " + i, requester,
+                    now.minusMinutes(i)));
+            for (int j = 0; j < ITEMS_PER_REQUEST; j++) {
+                entityManager.persist(new Item(null, "Вещь " + i + "-" + j, "Описание", true, owner, itemRequest));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        ItemRequestServiceImpl itemRequestService = new ItemRequestServiceImpl(itemRequestRepository,
+                userRepository, new UserExistenceChecker(userRepository, 100, Duration.ofMinutes(1)), itemRepository);
+
+        long batchedNanos = Long.MAX_VALUE;
+        long batchedStatements = 0;
+        for (int run = 0; run < RUNS; run++) {
+            clearCaches();
+            statistics.clear();
+            long start = System.nanoTime();
+            List<ItemRequestDtoWithItems> page = itemRequestService.findAll(owner.getId(), 0, requests);
+            batchedNanos = Math.min(batchedNanos, System.nanoTime() - start);
+            batchedStatements = statistics.getPrepareStatementCount();
+            assertEquals(requests, page.size());
+            page.forEach(request -> assertEquals(ITEMS_PER_REQUEST, request.getItems().size()));
+        }
+
+        long perRequestNanos = Long.MAX_VALUE;
+        long perRequestStatements = 0;
+        for (int run = 0; run < RUNS; run++) {
+            clearCaches();
+            statistics.clear();
+            long start = System.nanoTime();
+            List<ItemRequestDtoWithItems> page = itemRequestRepository.findItemRequestDtosByRequesterIdIsNot(
+                    owner.getId(), Cursor.MIN_TIME, Long.MIN_VALUE, PageRequest.of(0, requests));
+            for (ItemRequestDtoWithItems request : page) {
+                request.setItems(itemRepository.findItemDtosByRequestIdIn(List.of(request.getId())));
+            }
+            perRequestNanos = Math.min(perRequestNanos, System.nanoTime() - start);
+            perRequestStatements = statistics.getPrepareStatementCount();
+        }
+
+        log.info("Запросов на странице: " + requests +
+                ". Одним запросом: " + batchedStatements + " SQL, " + batchedNanos / 1000 + " мкс" +
+                ". По запросу на элемент: " + perRequestStatements + " SQL, " + perRequestNanos / 1000 + " мкс");
+        //Страница запросов и вещи - независимо от размера страницы (пользователь проверен в первом прогоне):
+        assertEquals(2, batchedStatements);
+        assertEquals(requests + 1, perRequestStatements);
+    }
+
+    //Каждый прогон начинается без сущностей в памяти, в том числе в кэше второго уровня:
+    private void clearCaches() {
+        entityManager.clear();
+        entityManager.getEntityManager().getEntityManagerFactory().getCache().evictAll();
+    }
+}
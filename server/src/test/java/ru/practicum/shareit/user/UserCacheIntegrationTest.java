@@ -0,0 +1,66 @@
+package ru.practicum.shareit.user;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Без @Transactional: в кэш второго уровня попадает только то, что закоммичено.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class UserCacheIntegrationTest {
+    private final UserService userService;
+    private final EntityManagerFactory entityManagerFactory;
+    Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void getUser_whenUserCached_thenNoStatements() {
+        UserDto userDto = userService.create(createUserDto("user", "user@mail.ru"));
+        userService.getUser(userDto.getId());
+
+        statistics.clear();
+        UserDto cached = userService.getUser(userDto.getId());
+
+        assertEquals("user", cached.getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    public void getUser_whenUserUpdatedOrDeleted_thenCacheNotStale() {
+        UserDto userDto = userService.create(createUserDto("user", "user@mail.ru"));
+        userService.getUser(userDto.getId());
+
+        userService.update(userDto.getId(), createUserDto("updated", null));
+        assertEquals("updated", userService.getUser(userDto.getId()).getName());
+
+        userService.delete(userDto.getId());
+        assertThrows(NotFoundException.class, () -> userService.getUser(userDto.getId()));
+    }
+
+    private UserDto createUserDto(String name, String email) {
+        UserDto userDto = new UserDto();
+        userDto.setName(name);
+        userDto.setEmail(email);
+        return userDto;
+    }
+}
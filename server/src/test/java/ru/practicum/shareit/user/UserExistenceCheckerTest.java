@@ -0,0 +1,64 @@
+package ru.practicum.shareit.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceChecker;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserExistenceCheckerTest {
+    @Mock
+    UserRepository userRepository;
+    UserExistenceChecker userExistenceChecker;
+
+    @BeforeEach
+    public void setUp() {
+        userExistenceChecker = new UserExistenceChecker(userRepository, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void exists_whenUserAlreadyChecked_thenNoRepositoryCall() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertTrue(userExistenceChecker.exists(1L));
+        assertTrue(userExistenceChecker.exists(1L));
+        verify(userRepository, times(1)).existsById(1L);
+    }
+
+    @Test
+    public void exists_whenUserNotFound_thenCheckedAgainNextTime() {
+        when(userRepository.existsById(10L)).thenReturn(false);
+
+        assertFalse(userExistenceChecker.exists(10L));
+        assertFalse(userExistenceChecker.exists(10L));
+        verify(userRepository, times(2)).existsById(10L);
+    }
+
+    @Test
+    public void exists_whenUserForgotten_thenCheckedAgain() {
+        when(userRepository.existsById(1L)).thenReturn(true, false);
+
+        assertTrue(userExistenceChecker.exists(1L));
+        userExistenceChecker.forget(1L);
+        assertFalse(userExistenceChecker.exists(1L));
+        verify(userRepository, times(2)).existsById(1L);
+    }
+
+    @Test
+    public void exists_whenTtlIsZero_thenAlwaysChecked() {
+        UserExistenceChecker noCache = new UserExistenceChecker(userRepository, 100, Duration.ZERO);
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertTrue(noCache.exists(1L));
+        assertTrue(noCache.exists(1L));
+        verify(userRepository, times(2)).existsById(1L);
+    }
+}
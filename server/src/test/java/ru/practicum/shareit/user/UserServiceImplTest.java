@@ -8,12 +8,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceChecker;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -29,6 +33,12 @@ public class UserServiceImplTest {
     UserServiceImpl userService;
     @Mock
     UserRepository userRepository;
+    @Mock
+    UserExistenceChecker userExistenceChecker;
+    @Mock
+    EntityManagerFactory entityManagerFactory;
+    @Mock
+    Cache cache;
     User testUser;
     User testUserTwo;
 
@@ -151,7 +161,10 @@ public class UserServiceImplTest {
 
     @Test
     public void delete_whenDataIsCorrect_thenDeleteUser() {
+        when(entityManagerFactory.getCache()).thenReturn(cache);
         userService.delete(1L);
         verify(userRepository, times(1)).deleteById(1L);
+        verify(cache, times(1)).evict(ItemRequest.class);
+        verify(userExistenceChecker, times(1)).forget(1L);
     }
 }
\ No newline at end of file